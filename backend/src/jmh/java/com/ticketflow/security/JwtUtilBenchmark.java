@@ -0,0 +1,100 @@
+package com.ticketflow.security;
+
+import com.ticketflow.model.Role;
+import com.ticketflow.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of authenticating a token: the old filter path, one uncached verify and one cached verify
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+    
+    private static final String SECRET = "dGlja2V0Zmxvdy1iZW5jaG1hcmstc2VjcmV0LWtleS1vZi1hdC1sZWFzdC0yNTYtYml0cw==";
+    // Distinct tokens cycled through, like different users' requests
+    private static final int TOKENS = 1000;
+    
+    private JwtUtil uncached;
+    private JwtUtil cached;
+    private String[] tokens;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        uncached = jwtUtil(0);
+        cached = jwtUtil(10_000);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = cached.generateToken(User.builder()
+                    .id((long) i)
+                    .username("user" + i)
+                    .role(Role.USER)
+                    .accountVersion(0)
+                    .build());
+            cached.verify(tokens[i]);
+        }
+    }
+    
+    // Before verify: extractUsername, then validateToken parsed twice more, each parse decoding the
+    // secret and building a new key and parser
+    @Benchmark
+    public boolean previousPath() {
+        String token = nextToken();
+        String username = oldParse(token).getSubject();
+        String validatedUsername = oldParse(token).getSubject();
+        Date expiration = oldParse(token).getExpiration();
+        return username.equals(validatedUsername) && !expiration.before(new Date());
+    }
+    
+    @Benchmark
+    public Claims uncachedVerify() {
+        return uncached.verify(nextToken());
+    }
+    
+    @Benchmark
+    public Claims cachedVerify() {
+        return cached.verify(nextToken());
+    }
+    
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % TOKENS;
+        return token;
+    }
+    
+    private static Claims oldParse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+    
+    private static JwtUtil jwtUtil(long verifiedCacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", verifiedCacheSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
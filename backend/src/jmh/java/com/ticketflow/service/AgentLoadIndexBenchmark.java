@@ -0,0 +1,66 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.AssignmentProperties;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Assignments per second of AgentLoadIndex.reserve, alone and with creations racing on the same agents
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentLoadIndexBenchmark {
+    
+    private static final Priority[] PRIORITIES = Priority.values();
+    
+    @Param({"5", "50", "500"})
+    private int agents;
+    
+    private AgentLoadIndex index;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        AssignmentProperties properties = new AssignmentProperties();
+        properties.getWeights().put(Priority.LOW, 1);
+        properties.getWeights().put(Priority.MEDIUM, 2);
+        properties.getWeights().put(Priority.HIGH, 4);
+        properties.getWeights().put(Priority.URGENT, 8);
+        
+        // No repositories: agents are registered through the change hooks, which apply at once outside a transaction
+        index = new AgentLoadIndex(null, null, properties);
+        for (long id = 1; id <= agents; id++) {
+            index.userChanged(User.builder().id(id).role(Role.SUPPORT_AGENT).enabled(true).build());
+        }
+    }
+    
+    @Benchmark
+    public Optional<Long> reserve() {
+        return index.reserve(PRIORITIES[ThreadLocalRandom.current().nextInt(PRIORITIES.length)]);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Optional<Long> reserveContended() {
+        return index.reserve(PRIORITIES[ThreadLocalRandom.current().nextInt(PRIORITIES.length)]);
+    }
+}
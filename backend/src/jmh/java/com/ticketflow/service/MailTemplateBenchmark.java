@@ -0,0 +1,64 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.MailTemplateProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Subject, summary and body of an assignment notification: compiled template versus the String.format it replaced
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailTemplateBenchmark {
+    
+    private MailTemplates mailTemplates;
+    private long ticketId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        mailTemplates = new MailTemplates(new MailTemplateProperties());
+        mailTemplates.load();
+    }
+    
+    @Benchmark
+    public MailTemplates.Rendered template() {
+        // In the order of MailTemplates.VARIABLES
+        return mailTemplates.render(MailTemplates.TICKET_ASSIGNED,
+                "Bob Stone", ++ticketId, "Printer on the third floor is jammed", "HIGH", "OPEN", "Ann Lee", null, null);
+    }
+    
+    @Benchmark
+    public MailTemplates.Rendered stringFormat() {
+        long id = ++ticketId;
+        return new MailTemplates.Rendered(
+                "Ticket Assigned - #" + id,
+                String.format("Ticket #%d assigned to you: %s (%s priority)", id, "Printer on the third floor is jammed", "HIGH"),
+                String.format(
+                        "Hello %s,\n\n" +
+                        "A new ticket has been assigned to you.\n\n" +
+                        "Ticket #%d\n" +
+                        "Subject: %s\n" +
+                        "Priority: %s\n" +
+                        "Status: %s\n" +
+                        "Created by: %s\n\n" +
+                        "Please review and respond to the ticket.\n\n" +
+                        "Best regards,\n" +
+                        "TicketFlow Support Team",
+                        "Bob Stone", id, "Printer on the third floor is jammed", "HIGH", "OPEN", "Ann Lee"
+                )
+        );
+    }
+}
@@ -2,10 +2,16 @@ package com.ticketflow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @EnableJpaAuditing
+@EnableScheduling
+@EnableAsync
 public class TicketFlowApplication {
     public static void main(String[] args) {
         SpringApplication.run(TicketFlowApplication.class, args);
@@ -0,0 +1,23 @@
+package com.ticketflow.config;
+
+import com.ticketflow.model.Priority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.assignment")
+public class AssignmentProperties {
+    
+    // Assign new tickets to the least-loaded agent on creation
+    private boolean autoAssign = true;
+    
+    // Load contributed by one open ticket of each priority; unlisted priorities count as 1
+    private Map<Priority, Integer> weights = new EnumMap<>(Priority.class);
+    
+    public int weightOf(Priority priority) {
+        return weights.getOrDefault(priority, 1);
+    }
+}
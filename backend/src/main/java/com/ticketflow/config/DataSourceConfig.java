@@ -0,0 +1,59 @@
+package com.ticketflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primary pool from spring.datasource, one read-only pool per entry of
+ * ticket.datasource.replicas, and a routing DataSource in front of them.
+ */
+@Configuration
+public class DataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                     DataSourceProperties properties,
+                                                     ReplicaDataSourceProperties replicaProperties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Replica> configured = replicaProperties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReplicaDataSourceProperties.Replica replica = configured.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + (i + 1));
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setDriverClassName(properties.getDriverClassName());
+            dataSource.setReadOnly(true);
+            // Do not fail startup over a replica that is down; the lag check keeps it out of rotation
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, replicaProperties);
+    }
+    
+    // Connections are fetched on first use, when the transaction's read-only flag is already set
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.event-bus")
+public class EventBusProperties {
+    
+    // Slots in the ring buffer, rounded up to a power of two; publishers wait once the slowest consumer is this far behind
+    private int capacity = 4096;
+    
+    private WaitStrategy waitStrategy = WaitStrategy.SLEEPING;
+    
+    // How an idle consumer waits for the next event
+    public enum WaitStrategy {
+        BLOCKING,  // sleeps on a condition that publishers signal; no idle CPU, a lock on every publish
+        SLEEPING,  // spins, then yields, then parks briefly; little idle CPU, no lock on publish
+        YIELDING,  // spins, then yields; low latency, keeps a core busy
+        BUSY_SPIN  // lowest latency, one busy core per consumer
+    }
+}
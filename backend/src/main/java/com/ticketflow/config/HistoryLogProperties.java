@@ -0,0 +1,24 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.history")
+public class HistoryLogProperties {
+    
+    // Directory holding the history segment files
+    private String dir = "./history";
+    
+    // Size of each memory-mapped segment file; a new one is started when the current one is full
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    
+    // Records between state snapshots; a point-in-time query replays at most about this many records
+    private long snapshotInterval = 250_000;
+    
+    // Records older than this are deleted a segment at a time, once a snapshot covers them; zero keeps everything
+    private Duration retention = Duration.ZERO;
+}
@@ -0,0 +1,27 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.mail.delivery")
+public class MailDeliveryProperties {
+    
+    // Concurrent SMTP connections, each owned by one sending thread
+    private int parallelism = 4;
+    
+    // Messages waiting for a connection; submitting blocks while it is full
+    private int queueCapacity = 200;
+    
+    // Connections unused for this long are closed
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    
+    // Connections are reopened after this many messages, as many servers limit messages per session
+    private int maxMessagesPerConnection = 100;
+    
+    // Longest wait for the outcome of a submitted message, counted from its submission; keep it below
+    // the outbox lease so an unanswered message is retried by its dispatcher rather than claimed again
+    private Duration sendTimeout = Duration.ofMinutes(2);
+}
@@ -0,0 +1,23 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.mail.digest")
+public class MailDigestProperties {
+    
+    // Merge the notifications a recipient gets within the window into one email
+    private boolean enabled = true;
+    
+    // How long a recipient's first pending notification waits for others to join it
+    private Duration window = Duration.ofMinutes(2);
+    
+    // Most notifications merged into one email; a recipient with more gets several digests
+    private int maxItems = 50;
+    
+    // Longest time spent sending held notifications when the application shuts down
+    private Duration shutdownFlushTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,28 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.mail.outbox")
+public class MailOutboxProperties {
+    
+    // Messages claimed and sent over one SMTP connection per round
+    private int batchSize = 50;
+    
+    // Attempts before a message is moved to the dead-letter state
+    private int maxAttempts = 8;
+    
+    // Retry delay after the first failure, doubled on every further failure up to maxBackoff
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    
+    private Duration maxBackoff = Duration.ofHours(1);
+    
+    // Claimed messages become due again after this long if the dispatcher dies before recording the outcome
+    private Duration lease = Duration.ofMinutes(5);
+    
+    // Sent messages are deleted after this long
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,12 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.mail.templates")
+public class MailTemplateProperties {
+    
+    // Directory with <name>.txt files overriding the built-in templates; none when blank
+    private String dir = "";
+}
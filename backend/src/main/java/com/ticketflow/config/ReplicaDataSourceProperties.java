@@ -0,0 +1,30 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.datasource")
+public class ReplicaDataSourceProperties {
+    
+    // Read replicas of spring.datasource; empty keeps all traffic on the primary
+    private List<Replica> replicas = new ArrayList<>();
+    
+    // Replicas further behind the primary than this are skipped until they catch up
+    private long maxLagMs = 2000;
+    
+    private long lagCheckIntervalMs = 5000;
+    
+    // How long a user's reads stay on the primary after they committed a write; keep it above max-lag-ms
+    private long stickyWindowMs = 5000;
+    
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,171 @@
+package com.ticketflow.config;
+
+import jakarta.persistence.CacheStoreMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica (round robin) and everything else to
+ * the primary. Replicas are polled for replication lag and skipped while they are behind
+ * or unreachable, and a user who just committed a write keeps reading from the primary
+ * for a short window so they always see their own changes.
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the read-only flag of a transaction is only known once the transaction has begun.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    
+    private static final String PRIMARY = "primary";
+    
+    // 0 on a standalone server (or a caught-up standby), otherwise the age of the last replayed transaction
+    private static final String LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+    
+    private final List<Replica> replicas;
+    private final ReplicaDataSourceProperties properties;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicaDataSources,
+                                    ReplicaDataSourceProperties properties) {
+        this.properties = properties;
+        this.replicas = replicaDataSources.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        
+        Map<Object, Object> targets = new HashMap<>(replicaDataSources);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || isSticky()) {
+            return PRIMARY;
+        }
+        
+        List<Replica> healthy = replicas.stream().filter(replica -> replica.healthy).toList();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        
+        bypassSecondLevelCacheStores();
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size())).name;
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.datasource.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(1);
+                try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                    resultSet.next();
+                    replica.lagMs = resultSet.getLong(1);
+                }
+                boolean healthy = replica.lagMs <= properties.getMaxLagMs();
+                if (healthy != replica.healthy) {
+                    log.info("Replica {} is now {} (lag {} ms)", replica.name, healthy ? "in use" : "skipped", replica.lagMs);
+                }
+                replica.healthy = healthy;
+            } catch (Exception e) {
+                if (replica.healthy) {
+                    log.warn("Replica {} is unreachable, reading from the primary instead", replica.name, e);
+                }
+                replica.healthy = false;
+            }
+        }
+        
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until < now);
+    }
+    
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Could not close replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+    
+    // Read-your-writes: once the write commits, this user's reads stay on the primary for the sticky window
+    private void rememberWrite() {
+        String username = currentUsername();
+        if (username == null || replicas.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stickyUntil.put(username, System.currentTimeMillis() + properties.getStickyWindowMs());
+                }
+            });
+        } else {
+            stickyUntil.put(username, System.currentTimeMillis() + properties.getStickyWindowMs());
+        }
+    }
+    
+    private boolean isSticky() {
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(username);
+        return until != null && until >= System.currentTimeMillis();
+    }
+    
+    // Entities read from a lagging replica must not be put into the shared second-level cache
+    private void bypassSecondLevelCacheStores() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+            }
+        }
+    }
+    
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+    
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMs;
+        
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
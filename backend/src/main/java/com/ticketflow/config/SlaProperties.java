@@ -0,0 +1,33 @@
+package com.ticketflow.config;
+
+import com.ticketflow.model.Priority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.sla")
+public class SlaProperties {
+    
+    // Response and resolve targets per priority, counted from the ticket's creation
+    private Map<Priority, Target> targets = new EnumMap<>(Priority.class);
+    
+    // Share of a target after which the ticket is reported as at risk
+    private double warningRatio = 0.8;
+    
+    private Duration tickDuration = Duration.ofSeconds(1);
+    
+    private int ticksPerWheel = 1024;
+    
+    // Size of the in-memory event log served by /api/sla/events
+    private int maxEvents = 10000;
+    
+    @Data
+    public static class Target {
+        private Duration response;
+        private Duration resolve;
+    }
+}
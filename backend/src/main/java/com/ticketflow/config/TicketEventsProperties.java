@@ -0,0 +1,29 @@
+package com.ticketflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ticket.events")
+public class TicketEventsProperties {
+    
+    // Open event streams across all users; further subscribers are told to retry later
+    private int maxSubscribers = 10000;
+    
+    // Events waiting to be written to one connection; a client that falls this far behind is disconnected
+    private int queueCapacity = 256;
+    
+    // Recent events kept for clients that reconnect with Last-Event-ID
+    private int replaySize = 1000;
+    
+    // Threads writing to connections; each connection is written by at most one of them at a time
+    private int senderThreads = 8;
+    
+    // Streams are closed after this long and reopened by the client
+    private Duration timeout = Duration.ofMinutes(30);
+    
+    // Reconnect delay suggested to clients
+    private Duration retry = Duration.ofSeconds(3);
+}
@@ -1,15 +1,25 @@
 package com.ticketflow.controller;
 
+import com.ticketflow.dto.CacheStatsResponse;
+import com.ticketflow.dto.EventBusStatsResponse;
+import com.ticketflow.dto.ImportJobResponse;
+import com.ticketflow.dto.OutboxEmailResponse;
 import com.ticketflow.dto.RegisterRequest;
 import com.ticketflow.dto.UserResponse;
 import com.ticketflow.model.Role;
+import com.ticketflow.service.CacheStatsService;
+import com.ticketflow.service.EmailOutboxDispatcher;
+import com.ticketflow.service.TicketEventBus;
+import com.ticketflow.service.TicketImportService;
 import com.ticketflow.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,6 +29,10 @@ import java.util.List;
 public class AdminController {
     
     private final UserService userService;
+    private final TicketImportService ticketImportService;
+    private final CacheStatsService cacheStatsService;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+    private final TicketEventBus ticketEventBus;
     
     @GetMapping("/users")
     public ResponseEntity<List<UserResponse>> getAllUsers() {
@@ -53,4 +67,34 @@ public class AdminController {
     public ResponseEntity<UserResponse> toggleUserStatus(@PathVariable Long id) {
         return ResponseEntity.ok(userService.toggleUserStatus(id));
     }
+    
+    @PostMapping("/imports/tickets")
+    public ResponseEntity<ImportJobResponse> importTickets(@RequestParam("file") MultipartFile file) throws IOException {
+        return ResponseEntity.accepted().body(ticketImportService.startImport(file));
+    }
+    
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(ticketImportService.getImportJob(jobId));
+    }
+    
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        return ResponseEntity.ok(cacheStatsService.getCacheStats());
+    }
+    
+    @GetMapping("/email-outbox/dead")
+    public ResponseEntity<List<OutboxEmailResponse>> getDeadEmails() {
+        return ResponseEntity.ok(emailOutboxDispatcher.getDeadLetters());
+    }
+    
+    @PostMapping("/email-outbox/{id}/retry")
+    public ResponseEntity<OutboxEmailResponse> retryEmail(@PathVariable Long id) {
+        return ResponseEntity.ok(emailOutboxDispatcher.retry(id));
+    }
+    
+    @GetMapping("/event-bus")
+    public ResponseEntity<EventBusStatsResponse> getEventBusStats() {
+        return ResponseEntity.ok(ticketEventBus.getStats());
+    }
 }
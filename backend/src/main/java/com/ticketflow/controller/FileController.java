@@ -3,12 +3,15 @@ package com.ticketflow.controller;
 import com.ticketflow.dto.AttachmentResponse;
 import com.ticketflow.model.Attachment;
 import com.ticketflow.service.FileService;
+import com.ticketflow.service.TicketService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -21,6 +24,7 @@ import java.util.List;
 public class FileController {
     
     private final FileService fileService;
+    private final TicketService ticketService;
     
     @PostMapping("/upload")
     public ResponseEntity<AttachmentResponse> uploadFile(
@@ -30,9 +34,17 @@ public class FileController {
         return ResponseEntity.ok(fileService.uploadFile(ticketId, file));
     }
     
+    // Conditional on the ticket revision, which attachment uploads bump
     @GetMapping("/ticket/{ticketId}")
-    public ResponseEntity<List<AttachmentResponse>> getTicketAttachments(@PathVariable Long ticketId) {
-        return ResponseEntity.ok(fileService.getTicketAttachments(ticketId));
+    public ResponseEntity<List<AttachmentResponse>> getTicketAttachments(@PathVariable Long ticketId, WebRequest webRequest) {
+        String etag = ticketService.getTicketEtag(ticketId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(fileService.getTicketAttachments(ticketId));
     }
     
     @GetMapping("/download/{attachmentId}")
@@ -0,0 +1,39 @@
+package com.ticketflow.controller;
+
+import com.ticketflow.dto.SlaEventResponse;
+import com.ticketflow.dto.SlaStatusResponse;
+import com.ticketflow.service.SlaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sla")
+@PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+@RequiredArgsConstructor
+public class SlaController {
+    
+    private final SlaService slaService;
+    
+    // Poll with the id of the last event seen to receive only newer ones
+    @GetMapping("/events")
+    public ResponseEntity<List<SlaEventResponse>> getEvents(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        return ResponseEntity.ok(slaService.getEvents(afterId, Math.min(Math.max(limit, 1), 1000)));
+    }
+    
+    @GetMapping("/at-risk")
+    public ResponseEntity<List<SlaStatusResponse>> getAtRisk() {
+        return ResponseEntity.ok(slaService.getAtRisk());
+    }
+    
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<SlaStatusResponse> getTicketSla(@PathVariable Long id) {
+        return ResponseEntity.ok(slaService.getTicketSla(id));
+    }
+}
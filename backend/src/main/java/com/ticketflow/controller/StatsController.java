@@ -0,0 +1,59 @@
+package com.ticketflow.controller;
+
+import com.ticketflow.dto.StatusCountsResponse;
+import com.ticketflow.dto.TicketStatsResponse;
+import com.ticketflow.service.TicketHistoryReplay;
+import com.ticketflow.service.TicketStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+@PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+@RequiredArgsConstructor
+public class StatsController {
+    
+    private static final int MAX_DAYS = 366;
+    
+    private final TicketStatsService ticketStatsService;
+    private final TicketHistoryReplay ticketHistoryReplay;
+    
+    @GetMapping
+    public ResponseEntity<TicketStatsResponse> getStats() {
+        return ResponseEntity.ok(ticketStatsService.getStats());
+    }
+    
+    // Tickets per status at a past moment, rebuilt from the ticket history
+    @GetMapping("/status-counts")
+    public ResponseEntity<StatusCountsResponse> getStatusCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return ResponseEntity.ok(ticketHistoryReplay.getStatusCounts(List.of(at)).get(0));
+    }
+    
+    // Tickets per status at the end of each day from "from" to "to", inclusive
+    @GetMapping("/status-counts/daily")
+    public ResponseEntity<List<StatusCountsResponse>> getDailyStatusCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new RuntimeException("The date range must be between 1 and " + MAX_DAYS + " days");
+        }
+        List<LocalDateTime> times = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            times.add(day.atTime(LocalTime.MAX));
+        }
+        return ResponseEntity.ok(ticketHistoryReplay.getStatusCounts(times));
+    }
+}
@@ -3,13 +3,23 @@ package com.ticketflow.controller;
 import com.ticketflow.dto.*;
 import com.ticketflow.model.Priority;
 import com.ticketflow.model.TicketStatus;
+import com.ticketflow.service.TicketEventBroadcaster;
+import com.ticketflow.service.TicketExportService;
 import com.ticketflow.service.TicketService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,32 +28,80 @@ import java.util.List;
 public class TicketController {
     
     private final TicketService ticketService;
+    private final TicketExportService ticketExportService;
+    private final TicketEventBroadcaster ticketEventBroadcaster;
     
     @PostMapping
     public ResponseEntity<TicketResponse> createTicket(@Valid @RequestBody TicketRequest request) {
         return ResponseEntity.ok(ticketService.createTicket(request));
     }
     
-    @GetMapping("/my-tickets")
+    // Listing endpoints answer with a cursor page when "size" or "cursor" is given,
+    // and fall back to the legacy unpaged list otherwise.
+    
+    @GetMapping(value = "/my-tickets", params = {"!size", "!cursor"})
     public ResponseEntity<List<TicketResponse>> getMyTickets() {
         return ResponseEntity.ok(ticketService.getMyTickets());
     }
     
-    @GetMapping("/assigned")
+    @GetMapping("/my-tickets")
+    public ResponseEntity<TicketPage> getMyTicketsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(ticketService.getMyTicketsPage(cursor, size));
+    }
+    
+    @GetMapping(value = "/assigned", params = {"!size", "!cursor"})
     @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
     public ResponseEntity<List<TicketResponse>> getAssignedTickets() {
         return ResponseEntity.ok(ticketService.getAssignedTickets());
     }
     
-    @GetMapping("/all")
+    @GetMapping("/assigned")
+    @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+    public ResponseEntity<TicketPage> getAssignedTicketsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(ticketService.getAssignedTicketsPage(cursor, size));
+    }
+    
+    @GetMapping(value = "/all", params = {"!size", "!cursor"})
     @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
     public ResponseEntity<List<TicketResponse>> getAllTickets() {
         return ResponseEntity.ok(ticketService.getAllTickets());
     }
     
+    @GetMapping("/all")
+    @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+    public ResponseEntity<TicketPage> getAllTicketsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(ticketService.getAllTicketsPage(cursor, size));
+    }
+    
+    // Server-sent stream of changes to the tickets the caller can see; a reconnecting
+    // client resumes after the Last-Event-ID it received
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return ticketEventBroadcaster.subscribe(lastEventId);
+    }
+    
+    // Ticket detail and comments are conditional on the ticket revision: an unchanged
+    // resource is answered with 304 after a single-column lookup.
+    
     @GetMapping("/{id}")
-    public ResponseEntity<TicketResponse> getTicketById(@PathVariable Long id) {
-        return ResponseEntity.ok(ticketService.getTicketById(id));
+    public ResponseEntity<TicketResponse> getTicketById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = ticketService.getTicketEtag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ticketService.getTicketById(id));
     }
     
     @PatchMapping("/{id}/status")
@@ -64,6 +122,18 @@ public class TicketController {
         return ResponseEntity.ok(ticketService.assignTicket(id, assigneeId));
     }
     
+    @PatchMapping("/bulk/status")
+    @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+    public ResponseEntity<BulkOperationResponse> bulkUpdateStatus(@Valid @RequestBody BulkStatusRequest request) {
+        return ResponseEntity.ok(ticketService.bulkUpdateStatus(request));
+    }
+    
+    @PatchMapping("/bulk/assign")
+    @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+    public ResponseEntity<BulkOperationResponse> bulkAssign(@Valid @RequestBody BulkAssignRequest request) {
+        return ResponseEntity.ok(ticketService.bulkAssign(request));
+    }
+    
     @PostMapping("/{id}/comments")
     public ResponseEntity<CommentResponse> addComment(
             @PathVariable Long id,
@@ -73,8 +143,29 @@ public class TicketController {
     }
     
     @GetMapping("/{id}/comments")
-    public ResponseEntity<List<CommentResponse>> getTicketComments(@PathVariable Long id) {
-        return ResponseEntity.ok(ticketService.getTicketComments(id));
+    public ResponseEntity<List<CommentResponse>> getTicketComments(@PathVariable Long id, WebRequest webRequest) {
+        String etag = ticketService.getTicketEtag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ticketService.getTicketComments(id));
+    }
+    
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<TicketHistoryEntry>> getTicketHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(ticketService.getTicketHistory(id));
+    }
+    
+    // e.g. /api/tickets/123/as-of?at=2024-05-02T14:05:00
+    @GetMapping("/{id}/as-of")
+    public ResponseEntity<TicketStateResponse> getTicketStateAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return ResponseEntity.ok(ticketService.getTicketStateAt(id, at));
     }
     
     @PostMapping("/{id}/rate")
@@ -85,12 +176,52 @@ public class TicketController {
         return ResponseEntity.ok(ticketService.rateTicket(id, request));
     }
     
-    @GetMapping("/search")
+    @GetMapping(value = "/search", params = {"!size", "!cursor"})
     public ResponseEntity<List<TicketResponse>> searchTickets(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) TicketStatus status,
-            @RequestParam(required = false) Priority priority
+            @RequestParam(required = false) Priority priority,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) Integer maxEdits
     ) {
+        if (fuzzy) {
+            return ResponseEntity.ok(ticketService.fuzzySearchTickets(keyword, status, priority, maxEdits));
+        }
         return ResponseEntity.ok(ticketService.searchTickets(keyword, status, priority));
     }
+    
+    @GetMapping("/search")
+    public ResponseEntity<TicketPage> searchTicketsPage(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) Priority priority,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) Integer maxEdits,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        if (fuzzy) {
+            return ResponseEntity.ok(ticketService.fuzzySearchTicketsPage(keyword, status, priority, maxEdits, cursor, size));
+        }
+        return ResponseEntity.ok(ticketService.searchTicketsPage(keyword, status, priority, cursor, size));
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('SUPPORT_AGENT', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(defaultValue = "CSV") TicketExportService.Format format,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) Priority priority
+    ) {
+        StreamingResponseBody body = outputStream ->
+                ticketExportService.exportTickets(format, keyword, status, priority, outputStream);
+        
+        boolean csv = format == TicketExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tickets." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
 }
@@ -0,0 +1,25 @@
+package com.ticketflow.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAssignRequest {
+    
+    @NotEmpty(message = "At least one ticket id is required")
+    @Size(max = 1000, message = "At most 1000 tickets can be assigned at once")
+    private List<Long> ticketIds;
+    
+    @NotNull(message = "Assignee is required")
+    private Long assigneeId;
+}
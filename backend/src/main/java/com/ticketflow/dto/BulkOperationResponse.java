@@ -0,0 +1,33 @@
+package com.ticketflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOperationResponse {
+    private int requested;
+    private int updated;
+    private List<Result> results;
+    
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        FORBIDDEN
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long ticketId;
+        private Outcome outcome;
+    }
+}
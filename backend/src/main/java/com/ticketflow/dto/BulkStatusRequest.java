@@ -0,0 +1,26 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.TicketStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+    
+    @NotEmpty(message = "At least one ticket id is required")
+    @Size(max = 1000, message = "At most 1000 tickets can be updated at once")
+    private List<Long> ticketIds;
+    
+    @NotNull(message = "Status is required")
+    private TicketStatus status;
+}
@@ -0,0 +1,20 @@
+package com.ticketflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String region;
+    private long hits;
+    private long misses;
+    private float hitPercentage;
+    private long puts;
+    private long removals;
+    private long evictions; // size-bound evictions and expirations
+}
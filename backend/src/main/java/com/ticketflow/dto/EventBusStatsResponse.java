@@ -0,0 +1,30 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.config.EventBusProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventBusStatsResponse {
+    private int capacity;
+    private EventBusProperties.WaitStrategy waitStrategy;
+    private long published;
+    private List<ConsumerStats> consumers;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConsumerStats {
+        private String name;
+        private long processed;
+        private long lag; // events published but not yet processed
+        private long errors;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ticketflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobResponse {
+    private String jobId;
+    private String status; // RUNNING, COMPLETED, FAILED
+    private long processed;
+    private long imported;
+    private long failed;
+    private List<ImportRowError> errors;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportRowError {
+        private long line;
+        private String message;
+    }
+}
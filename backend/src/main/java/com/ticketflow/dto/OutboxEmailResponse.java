@@ -0,0 +1,25 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEmailResponse {
+    private Long id;
+    private String recipient;
+    private String subject;
+    private OutboxStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,23 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaEventResponse {
+    private long id; // increasing, pass as afterId to poll for newer events
+    private Long ticketId;
+    private Priority priority;
+    private String target; // RESPONSE or RESOLVE
+    private String state; // AT_RISK or BREACHED
+    private LocalDateTime deadline;
+    private LocalDateTime occurredAt;
+}
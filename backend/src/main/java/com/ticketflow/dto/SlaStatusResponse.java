@@ -0,0 +1,24 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaStatusResponse {
+    private Long ticketId;
+    private Priority priority;
+    private TicketStatus status;
+    private LocalDateTime responseDeadline;
+    private String responseState; // ON_TRACK, AT_RISK, BREACHED or MET
+    private LocalDateTime resolveDeadline;
+    private String resolveState; // ON_TRACK, AT_RISK or BREACHED
+}
@@ -0,0 +1,17 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusCountsResponse {
+    private LocalDateTime asOf;
+    private Map<TicketStatus, Long> byStatus; // tickets with recorded history only
+}
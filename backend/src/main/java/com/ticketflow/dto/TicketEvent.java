@@ -0,0 +1,32 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketEvent {
+    
+    public enum Type { CREATED, STATUS_CHANGED, ASSIGNED, COMMENT_ADDED, ATTACHMENT_ADDED, RATED }
+    
+    private long id; // increasing, also sent as the SSE event id
+    private Type type;
+    private Long ticketId;
+    private Long createdById;
+    private TicketStatus status; // ticket state after the change
+    private Priority priority;
+    private Long assignedToId;
+    private Long actorId; // user who made the change; null for system changes
+    private TicketStatus previousStatus; // STATUS_CHANGED
+    private Long previousAssigneeId; // ASSIGNED
+    private Integer stars; // RATED
+    private LocalDateTime occurredAt;
+}
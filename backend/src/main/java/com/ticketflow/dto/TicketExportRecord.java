@@ -0,0 +1,41 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketExportRecord {
+    private Long id;
+    private String subject;
+    private String description;
+    private TicketStatus status;
+    private Priority priority;
+    private String createdBy;
+    private String assignedTo;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime resolvedAt;
+    private LocalDateTime closedAt;
+    private Integer ratingStars;
+    private String ratingFeedback;
+    private List<ExportedComment> comments;
+    
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ExportedComment {
+        private String author;
+        private LocalDateTime createdAt;
+        private String content;
+    }
+}
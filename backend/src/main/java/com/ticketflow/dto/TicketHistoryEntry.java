@@ -0,0 +1,27 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketHistoryEntry {
+    private long eventId; // position of the record in this instance's log, unique across restarts
+    private TicketEvent.Type type;
+    private LocalDateTime occurredAt;
+    private Long actorId;
+    private TicketStatus status; // ticket state after the change
+    private Priority priority;
+    private Long assignedToId;
+    private TicketStatus previousStatus;
+    private Long previousAssigneeId;
+    private Integer stars;
+}
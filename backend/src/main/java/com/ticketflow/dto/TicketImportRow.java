@@ -0,0 +1,61 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// One NDJSON line of a bulk ticket import
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketImportRow {
+    
+    @NotBlank(message = "Subject is required")
+    private String subject;
+    
+    @NotBlank(message = "Description is required")
+    private String description;
+    
+    @NotNull(message = "Priority is required")
+    private Priority priority;
+    
+    private TicketStatus status;
+    
+    @NotBlank(message = "Creator username is required")
+    private String createdBy;
+    
+    private String assignedTo;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime resolvedAt;
+    private LocalDateTime closedAt;
+    
+    @Valid
+    @Builder.Default
+    private List<CommentRow> comments = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CommentRow {
+        
+        @NotBlank(message = "Comment author is required")
+        private String author;
+        
+        @NotBlank(message = "Comment content is required")
+        private String content;
+        
+        private LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ticketflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketPage {
+    private List<TicketResponse> items;
+    private String next; // opaque cursor for the following page, null on the last page
+    private Integer size;
+}
@@ -28,4 +28,8 @@ public class TicketResponse {
     private Integer commentCount;
     private Integer attachmentCount;
     private RatingResponse rating;
+    
+    // Only set for keyword search results
+    private Float searchRank;
+    private String snippet;
 }
@@ -0,0 +1,28 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketStateResponse {
+    private Long ticketId;
+    private LocalDateTime asOf;
+    private TicketStatus status;
+    private Priority priority;
+    private Long assignedToId;
+    private Integer stars; // null until rated
+    private LocalDateTime createdAt; // null for tickets created before history was recorded
+    private LocalDateTime resolvedAt;
+    private LocalDateTime closedAt;
+    private long lastEventId;
+    private LocalDateTime lastChangedAt;
+}
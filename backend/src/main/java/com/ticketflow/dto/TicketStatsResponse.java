@@ -0,0 +1,36 @@
+package com.ticketflow.dto;
+
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketStatsResponse {
+    private long totalTickets;
+    private Map<TicketStatus, Long> byStatus;
+    private Map<Priority, Long> byPriority;
+    private List<AgentLoad> openByAgent; // OPEN and IN_PROGRESS tickets per assignee
+    private long resolvedTickets;
+    private Double meanTimeToResolveHours; // null until a ticket has been resolved
+    private LocalDateTime rebuiltAt; // last full recount from the database
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AgentLoad {
+        private Long agentId;
+        private String username;
+        private String fullName;
+        private long openTickets;
+    }
+}
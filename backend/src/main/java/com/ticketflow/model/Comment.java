@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Comment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comments_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, columnDefinition = "TEXT")
@@ -34,4 +35,14 @@ public class Comment {
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
+    
+    @Transient
+    private LocalDateTime importedCreatedAt; // legacy timestamp from bulk import, same handling as Ticket
+    
+    @PrePersist
+    void applyImportedCreatedAt() {
+        if (importedCreatedAt != null) {
+            createdAt = importedCreatedAt;
+        }
+    }
 }
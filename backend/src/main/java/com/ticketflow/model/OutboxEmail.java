@@ -0,0 +1,61 @@
+package com.ticketflow.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+// Notification email written in the same transaction as the change it reports, delivered later by EmailOutboxDispatcher
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_recipient", columnList = "status, recipient")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEmail {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String recipient;
+    
+    @Column(nullable = false)
+    private String subject;
+    
+    // One-line description used when the email is merged into a digest
+    @Column(length = 500)
+    private String summary;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+    
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,7 @@
+package com.ticketflow.model;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
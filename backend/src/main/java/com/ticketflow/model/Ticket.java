@@ -2,6 +2,9 @@ package com.ticketflow.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -11,16 +14,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets", indexes = {
+        @Index(name = "idx_tickets_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_tickets_created_by_created_at_id", columnList = "created_by, createdAt, id"),
+        @Index(name = "idx_tickets_assigned_to_created_at_id", columnList = "assigned_to, createdAt, id")
+})
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tickets")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Ticket {
     
+    // Pooled sequence ids let Hibernate batch inserts (IDENTITY forces one round-trip per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "tickets_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -56,6 +67,29 @@ public class Ticket {
     @OneToOne(mappedBy = "ticket", cascade = CascadeType.ALL)
     private Rating rating;
     
+    // Denormalized child counts, only ever changed by TicketCounters and the reconcile queries in TicketRepository
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer commentCount = 0;
+    
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer attachmentCount = 0;
+    
+    // Bumped in SQL on every change to the ticket or its comments, attachments and rating; used as the ETag
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long revision = 0L;
+    
+    // Optimistic lock for edits of the ticket itself; child changes only bump the revision
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+    
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -66,4 +100,16 @@ public class Ticket {
     private LocalDateTime resolvedAt;
     
     private LocalDateTime closedAt;
+    
+    // Set by the bulk importer to keep the legacy creation time, which auditing would otherwise replace
+    @Transient
+    private LocalDateTime importedCreatedAt;
+    
+    // Entity callbacks run after AuditingEntityListener, so this wins over the audited timestamp
+    @PrePersist
+    void applyImportedCreatedAt() {
+        if (importedCreatedAt != null) {
+            createdAt = importedCreatedAt;
+        }
+    }
 }
@@ -2,6 +2,8 @@ package com.ticketflow.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,6 +18,8 @@ import java.util.List;
 @Entity
 @Table(name = "users")
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +49,11 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Boolean enabled = true;
     
+    // Raised whenever the role or the enabled flag changes; tokens issued for an older value are refused
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private Integer accountVersion = 0;
+    
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
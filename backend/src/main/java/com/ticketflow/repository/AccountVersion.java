@@ -0,0 +1,7 @@
+package com.ticketflow.repository;
+
+// A user's id and account version, all the JWT filter needs to know about an account
+public interface AccountVersion {
+    Long getId();
+    Integer getAccountVersion();
+}
@@ -2,6 +2,7 @@ package com.ticketflow.repository;
 
 import com.ticketflow.model.Attachment;
 import com.ticketflow.model.Ticket;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,5 +11,7 @@ import java.util.List;
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
     List<Attachment> findByTicket(Ticket ticket);
+    
+    @EntityGraph(attributePaths = "uploadedBy")
     List<Attachment> findByTicketId(Long ticketId);
 }
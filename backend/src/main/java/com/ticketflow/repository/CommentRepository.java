@@ -2,13 +2,20 @@ package com.ticketflow.repository;
 
 import com.ticketflow.model.Comment;
 import com.ticketflow.model.Ticket;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByTicketOrderByCreatedAtAsc(Ticket ticket);
+    
+    @EntityGraph(attributePaths = "user")
     List<Comment> findByTicketIdOrderByCreatedAtAsc(Long ticketId);
+    
+    @EntityGraph(attributePaths = "user")
+    List<Comment> findByTicketIdInOrderByCreatedAtAsc(Collection<Long> ticketIds);
 }
@@ -0,0 +1,42 @@
+package com.ticketflow.repository;
+
+import com.ticketflow.model.OutboxEmail;
+import com.ticketflow.model.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+    
+    // Due messages, oldest first; rows locked by another dispatcher are skipped rather than waited for
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEmail> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    // Digest mode: due messages plus every other first-attempt message held for the same recipients,
+    // grouped by recipient so that each recipient's messages can be merged into one email
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND (next_attempt_at <= :now " +
+                   "OR (attempts = 0 AND recipient IN (SELECT d.recipient FROM email_outbox d " +
+                   "WHERE d.status = 'PENDING' AND d.next_attempt_at <= :now))) " +
+                   "ORDER BY recipient, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEmail> lockDueByRecipient(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.sentAt = :sentAt, e.attempts = e.attempts + 1, " +
+           "e.lastError = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") OutboxStatus status,
+                 @Param("sentAt") LocalDateTime sentAt);
+    
+    List<OutboxEmail> findByStatusOrderByCreatedAtDesc(OutboxStatus status);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.status = :status AND e.sentAt < :before")
+    int deleteByStatusAndSentAtBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
@@ -4,11 +4,24 @@ import com.ticketflow.model.Ticket;
 import com.ticketflow.model.TicketStatus;
 import com.ticketflow.model.Priority;
 import com.ticketflow.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecificationExecutor<Ticket> {
@@ -16,7 +29,174 @@ public interface TicketRepository extends JpaRepository<Ticket, Long>, JpaSpecif
     List<Ticket> findByAssignedTo(User user);
     List<Ticket> findByStatus(TicketStatus status);
     List<Ticket> findByPriority(Priority priority);
+    
+    // Listing queries fetch everything TicketResponse needs in the same statement
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating", "rating.ratedBy"})
     List<Ticket> findByCreatedByOrderByCreatedAtDesc(User user);
+    
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating", "rating.ratedBy"})
     List<Ticket> findByAssignedToOrderByCreatedAtDesc(User user);
+    
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating", "rating.ratedBy"})
     List<Ticket> findAllByOrderByCreatedAtDesc();
+    
+    @Override
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating", "rating.ratedBy"})
+    List<Ticket> findAll(Specification<Ticket> spec);
+    
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating", "rating.ratedBy"})
+    List<Ticket> findByIdIn(Collection<Long> ids);
+    
+    // Full-text search over the GIN-indexed search_vector column (see db/ticket-search.sql).
+    // Matching, ranking and the (rank, id) seek happen in the inner queries so that
+    // ts_headline only runs for the rows actually returned.
+    // The snippet is raw ticket text with matches between the control characters U+0002 and
+    // U+0003 (removed from the text beforehand); TicketService escapes it and adds the markup.
+    @Query(value = "SELECT p.id AS ticketId, p.rank AS rank, " +
+                   "ts_headline('english', translate(p.subject || ' ' || p.description, chr(2) || chr(3), ''), " +
+                   "websearch_to_tsquery('english', :query), " +
+                   "'StartSel=' || chr(2) || ', StopSel=' || chr(3) || ', MaxFragments=2, MinWords=5, MaxWords=20') AS snippet " +
+                   "FROM (" +
+                   "  SELECT r.* FROM (" +
+                   "    SELECT t.id, t.subject, t.description, " +
+                   "           ts_rank_cd(t.search_vector, websearch_to_tsquery('english', :query)) AS rank " +
+                   "    FROM tickets t " +
+                   "    WHERE t.search_vector @@ websearch_to_tsquery('english', :query) " +
+                   "      AND (CAST(:status AS varchar) IS NULL OR t.status = CAST(:status AS varchar)) " +
+                   "      AND (CAST(:priority AS varchar) IS NULL OR t.priority = CAST(:priority AS varchar)) " +
+                   "      AND (CAST(:createdById AS bigint) IS NULL OR t.created_by = CAST(:createdById AS bigint)) " +
+                   "  ) r " +
+                   "  WHERE CAST(:afterRank AS real) IS NULL " +
+                   "     OR r.rank < CAST(:afterRank AS real) " +
+                   "     OR (r.rank = CAST(:afterRank AS real) AND r.id < CAST(:afterId AS bigint)) " +
+                   "  ORDER BY r.rank DESC, r.id DESC " +
+                   "  LIMIT :limit" +
+                   ") p " +
+                   "ORDER BY p.rank DESC, p.id DESC",
+           nativeQuery = true)
+    List<TicketSearchHit> searchFullText(
+            @Param("query") String query,
+            @Param("status") String status,
+            @Param("priority") String priority,
+            @Param("createdById") Long createdById,
+            @Param("afterRank") Float afterRank,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit
+    );
+    
+    // Server-side cursor over the ids to export; rows are fetched from the driver in blocks of the fetch size
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT t.id FROM tickets t " +
+                   "WHERE (CAST(:query AS text) IS NULL " +
+                   "       OR t.search_vector @@ websearch_to_tsquery('english', CAST(:query AS text))) " +
+                   "  AND (CAST(:status AS varchar) IS NULL OR t.status = CAST(:status AS varchar)) " +
+                   "  AND (CAST(:priority AS varchar) IS NULL OR t.priority = CAST(:priority AS varchar)) " +
+                   "ORDER BY t.id",
+           nativeQuery = true)
+    Stream<Long> streamIdsForExport(
+            @Param("query") String query,
+            @Param("status") String status,
+            @Param("priority") String priority
+    );
+    
+    @EntityGraph(attributePaths = {"createdBy", "assignedTo", "rating"})
+    List<Ticket> findByIdInOrderByIdAsc(Collection<Long> ids);
+    
+    // Vocabulary for the fuzzy subject matcher, tokenized the same way as SubjectTermIndex
+    @Query(value = "SELECT DISTINCT w.word FROM tickets t, " +
+                   "regexp_split_to_table(lower(t.subject), '[^[:alnum:]]+') AS w(word) " +
+                   "WHERE length(w.word) >= 3",
+           nativeQuery = true)
+    List<String> findDistinctSubjectWords();
+    
+    // Subjects of tickets above an id, for the incremental refresh of the fuzzy vocabulary
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.id, t.subject FROM Ticket t WHERE t.id > :afterId")
+    Stream<Object[]> streamSubjectsAfter(@Param("afterId") long afterId);
+    
+    // Locks the rows a bulk operation is about to change, in id order so that two bulk requests cannot
+    // deadlock; tickets read afterwards in the same transaction are current until it commits
+    @Query(value = "SELECT id FROM tickets WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("ids") Collection<Long> ids);
+    
+    // Set-wise updates for bulk operations; callers pass only ids they were allowed to change
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = :status, t.updatedAt = :now, t.revision = t.revision + 1, t.version = t.version + 1, " +
+           "t.resolvedAt = CASE WHEN :status = com.ticketflow.model.TicketStatus.RESOLVED THEN :now ELSE t.resolvedAt END, " +
+           "t.closedAt = CASE WHEN :status = com.ticketflow.model.TicketStatus.CLOSED THEN :now ELSE t.closedAt END " +
+           "WHERE t.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("status") TicketStatus status,
+                          @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Ticket t SET t.assignedTo = :assignee, t.updatedAt = :now, t.revision = t.revision + 1, t.version = t.version + 1 WHERE t.id IN :ids")
+    int assignByIds(@Param("ids") Collection<Long> ids,
+                    @Param("assignee") User assignee,
+                    @Param("now") LocalDateTime now);
+    
+    // Conditional GETs only need the revision and the owner for the access check, never the full ticket
+    @Query("SELECT t.revision AS revision, t.createdBy.id AS createdById FROM Ticket t WHERE t.id = :id")
+    Optional<TicketRevision> findRevisionById(@Param("id") Long id);
+    
+    // Scalars only, so loading every open ticket for the SLA engine does not fill the persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.id, t.priority, t.status, t.createdAt FROM Ticket t WHERE t.status IN :statuses")
+    Stream<Object[]> streamSlaCandidates(@Param("statuses") Collection<TicketStatus> statuses);
+    
+    // Current state of every ticket, to start the ticket history from
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.id, t.status, t.priority, a.id, r.stars, t.createdAt, t.resolvedAt, t.closedAt, t.updatedAt " +
+           "FROM Ticket t LEFT JOIN t.assignedTo a LEFT JOIN t.rating r")
+    Stream<Object[]> streamHistoryStates();
+    
+    // Aggregates for rebuilding the in-memory dashboard statistics
+    @Query("SELECT t.status, COUNT(t) FROM Ticket t GROUP BY t.status")
+    List<Object[]> countByStatus();
+    
+    @Query("SELECT t.priority, COUNT(t) FROM Ticket t GROUP BY t.priority")
+    List<Object[]> countByPriority();
+    
+    @Query("SELECT t.assignedTo.id, COUNT(t) FROM Ticket t " +
+           "WHERE t.assignedTo IS NOT NULL AND t.status IN :statuses GROUP BY t.assignedTo.id")
+    List<Object[]> countByAssigneeAndStatusIn(@Param("statuses") Collection<TicketStatus> statuses);
+    
+    @Query("SELECT t.assignedTo.id, t.priority, COUNT(t) FROM Ticket t " +
+           "WHERE t.assignedTo IS NOT NULL AND t.status IN :statuses GROUP BY t.assignedTo.id, t.priority")
+    List<Object[]> countByAssigneeAndPriorityAndStatusIn(@Param("statuses") Collection<TicketStatus> statuses);
+    
+    // Number of resolved tickets and the sum of their creation-to-resolution times in seconds
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(EXTRACT(EPOCH FROM (resolved_at - created_at))), 0) " +
+                   "FROM tickets WHERE resolved_at IS NOT NULL",
+           nativeQuery = true)
+    List<Object[]> sumResolutionSeconds();
+    
+    @Query("SELECT MAX(t.id) FROM Ticket t")
+    Long findMaxId();
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Ticket t SET t.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.ticket = t), t.revision = t.revision + 1 " +
+           "WHERE t.id BETWEEN :fromId AND :toId " +
+           "AND t.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.ticket = t)")
+    int reconcileCommentCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Ticket t SET t.attachmentCount = (SELECT COUNT(a) FROM Attachment a WHERE a.ticket = t), t.revision = t.revision + 1 " +
+           "WHERE t.id BETWEEN :fromId AND :toId " +
+           "AND t.attachmentCount <> (SELECT COUNT(a) FROM Attachment a WHERE a.ticket = t)")
+    int reconcileAttachmentCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
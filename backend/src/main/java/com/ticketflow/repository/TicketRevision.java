@@ -0,0 +1,7 @@
+package com.ticketflow.repository;
+
+// Current revision of a ticket plus its creator, enough to build an ETag after the access check
+public interface TicketRevision {
+    Long getRevision();
+    Long getCreatedById();
+}
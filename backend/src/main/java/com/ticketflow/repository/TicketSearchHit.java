@@ -0,0 +1,8 @@
+package com.ticketflow.repository;
+
+// Row returned by the full-text search query: matching ticket, its relevance and a highlighted excerpt
+public interface TicketSearchHit {
+    Long getTicketId();
+    Float getRank();
+    String getSnippet();
+}
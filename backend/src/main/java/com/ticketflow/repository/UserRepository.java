@@ -2,7 +2,11 @@ package com.ticketflow.repository;
 
 import com.ticketflow.model.User;
 import com.ticketflow.model.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,9 +14,16 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Runs on every login; results are invalidated by any write to users
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+    
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     List<User> findByRole(Role role);
+    
+    // Reloaded periodically by AccountVersions, so only the two columns it needs
+    @Query("SELECT u.id AS id, u.accountVersion AS accountVersion FROM User u")
+    List<AccountVersion> findAllAccountVersions();
 }
@@ -0,0 +1,97 @@
+package com.ticketflow.security;
+
+import com.ticketflow.model.User;
+import com.ticketflow.repository.AccountVersion;
+import com.ticketflow.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory account version of every user, so the JWT filter can refuse tokens of changed
+ * accounts without reading users on each request. A token carries the account version it was
+ * issued for; a role change or a disable raises the user's version, which refuses their older
+ * tokens, and deleting the user refuses all of them. Changes made through this instance apply
+ * when they commit. Changes made on other instances are picked up by a periodic reload of every
+ * user's (id, version), so that interval bounds how long a revoked token is still accepted there.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountVersions {
+    
+    private static final int DELETED = Integer.MAX_VALUE;
+    
+    private final UserRepository userRepository;
+    
+    private volatile Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    // Start of the last reload, to the second like a token's issue time
+    private volatile long loadedAt = Long.MAX_VALUE;
+    
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${jwt.account-reload-interval-ms:30000}",
+            fixedDelayString = "${jwt.account-reload-interval-ms:30000}"
+    )
+    public void reload() {
+        long started = System.currentTimeMillis() / 1000 * 1000;
+        Map<Long, Integer> loaded = new ConcurrentHashMap<>();
+        for (AccountVersion account : userRepository.findAllAccountVersions()) {
+            loaded.put(account.getId(), account.getAccountVersion());
+        }
+        synchronized (this) {
+            // Changes committed here while the query ran can be newer than what it read
+            versions.forEach((id, version) -> loaded.computeIfPresent(id, (key, read) -> Math.max(read, version)));
+            versions = loaded;
+            loadedAt = started;
+        }
+        log.debug("Loaded account versions of {} users", loaded.size());
+    }
+    
+    // Whether a token issued at issuedAt for this account version may still be used
+    public boolean isCurrent(Long userId, int version, Date issuedAt) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            // Either created after the last reload, or deleted before it
+            return issuedAt.getTime() >= loadedAt;
+        }
+        return version >= current;
+    }
+    
+    public void userChanged(User user) {
+        Long id = user.getId();
+        int version = user.getAccountVersion();
+        onCommit(() -> versions.merge(id, version, Math::max));
+    }
+    
+    public void userDeleted(Long id) {
+        onCommit(() -> versions.put(id, DELETED));
+    }
+    
+    // Under the monitor, so a reload cannot swap in a map that misses the change
+    private void onCommit(Runnable change) {
+        Runnable apply = () -> {
+            synchronized (this) {
+                change.run();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+}
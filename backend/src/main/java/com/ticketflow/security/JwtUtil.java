@@ -1,76 +1,147 @@
 package com.ticketflow.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies the JWTs. The signing key and the parser are built once at startup.
+ * {@link #verify} checks a token's signature and expiry a single time and remembers the claims,
+ * keyed by a SHA-256 digest of the token, until the token expires, so the same token on later
+ * requests costs one digest instead of a parse and HMAC check.
+ * Tokens carry the user's id, role and account version, so {@link #toPrincipal} can rebuild the
+ * authenticated user without reading it (see {@link AccountVersions} for revoking them).
+ */
 @Component
 public class JwtUtil {
     
+    private static final String USER_ID = "uid";
+    private static final String ROLE = "role";
+    private static final String ACCOUNT_VERSION = "ver";
+    
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    // Recently verified tokens kept at most; the least recently used ones are dropped first
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
     
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
+    private SecretKey signKey;
+    private JwtParser parser;
+    private Cache<String, Claims> verified;
     
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        parser = Jwts.parser().verifyWith(signKey).build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Claims of a validly signed, unexpired token; throws JwtException otherwise
+    public Claims verify(String token) {
+        String digest = digest(token);
+        Claims claims = verified.getIfPresent(digest);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiration");
+        }
+        verified.put(digest, claims);
+        return claims;
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID, user.getId());
+        claims.put(ROLE, user.getRole().name());
+        claims.put(ACCOUNT_VERSION, user.getAccountVersion());
+        return createToken(claims, user.getUsername());
     }
     
-    public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+    // The user the verified claims were issued for, detached and without password, email or name;
+    // null for tokens that lack any of the claims (those issued before they were added)
+    public User toPrincipal(Claims claims) {
+        Long id = claims.get(USER_ID, Long.class);
+        String role = claims.get(ROLE, String.class);
+        Integer accountVersion = claims.get(ACCOUNT_VERSION, Integer.class);
+        if (id == null || role == null || accountVersion == null || claims.getSubject() == null || claims.getIssuedAt() == null) {
+            return null;
+        }
+        return User.builder()
+                .id(id)
+                .username(claims.getSubject())
+                .role(Role.valueOf(role))
+                .accountVersion(accountVersion)
+                .enabled(true)
+                .build();
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signKey, Jwts.SIG.HS256)
                 .compact();
     }
     
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-    
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 }
@@ -0,0 +1,234 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.AssignmentProperties;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory load of every agent, used to route new tickets without counting anyone's tickets.
+ * An agent's load is the sum of the priority weights of their open tickets, so one urgent ticket
+ * weighs as much as several low ones. {@link #reserve} picks the least-loaded eligible agent and
+ * claims the ticket's weight with a compare-and-set on that agent's score: a concurrent creation
+ * that raced on the same agent fails its CAS and picks again, so each new ticket sees the load of
+ * all tickets routed before it. The reservation is undone if the creating transaction rolls back.
+ * Other changes (status, reassignment, agents enabled or removed) apply when they commit, like
+ * {@link TicketStatsService}, and a periodic rebuild from the database repairs any drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AgentLoadIndex {
+    
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final AssignmentProperties properties;
+    
+    private final Map<Long, Load> loads = new ConcurrentHashMap<>();
+    // Eligible agents, replaced as a whole when eligibility changes so that reserve can scan without locking
+    private volatile Load[] agents = new Load[0];
+    // Start of the next scan, so agents with equal load take turns
+    private final AtomicInteger nextStart = new AtomicInteger();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${ticket.assignment.reconcile-interval-ms:600000}",
+            fixedDelayString = "${ticket.assignment.reconcile-interval-ms:600000}"
+    )
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public void rebuild() {
+        Map<Long, Boolean> eligible = new HashMap<>();
+        for (User agent : userRepository.findByRole(Role.SUPPORT_AGENT)) {
+            eligible.put(agent.getId(), Boolean.TRUE.equals(agent.getEnabled()));
+        }
+        
+        // Assignees that are not (or no longer) agents keep a load, but are never picked
+        Map<Long, long[]> counted = new HashMap<>();
+        for (Object[] row : ticketRepository.countByAssigneeAndPriorityAndStatusIn(TicketStatsService.OPEN_STATUSES)) {
+            long count = (Long) row[2];
+            long[] load = counted.computeIfAbsent((Long) row[0], id -> new long[2]);
+            load[0] += count * properties.weightOf((Priority) row[1]);
+            load[1] += count;
+        }
+        
+        synchronized (this) {
+            loads.keySet().removeIf(id -> !eligible.containsKey(id) && !counted.containsKey(id));
+            for (Long id : eligible.keySet()) {
+                loads.computeIfAbsent(id, Load::new).eligible = eligible.get(id);
+            }
+            for (Map.Entry<Long, long[]> entry : counted.entrySet()) {
+                Load load = loads.computeIfAbsent(entry.getKey(), Load::new);
+                load.eligible = eligible.getOrDefault(entry.getKey(), false);
+                load.score.set(entry.getValue()[0]);
+                load.openTickets.set((int) entry.getValue()[1]);
+            }
+            for (Load load : loads.values()) {
+                if (!counted.containsKey(load.agentId)) {
+                    load.score.set(0);
+                    load.openTickets.set(0);
+                }
+            }
+            refreshAgents();
+        }
+        log.debug("Agent load index rebuilt: {} eligible agents", agents.length);
+    }
+    
+    // Claims a ticket of the given priority for the least-loaded eligible agent; empty when there is none
+    public Optional<Long> reserve(Priority priority) {
+        int weight = properties.weightOf(priority);
+        while (true) {
+            Load[] candidates = agents;
+            if (candidates.length == 0) {
+                return Optional.empty();
+            }
+            
+            int start = Math.floorMod(nextStart.getAndIncrement(), candidates.length);
+            Load best = null;
+            long bestScore = Long.MAX_VALUE;
+            int bestOpen = Integer.MAX_VALUE;
+            for (int i = 0; i < candidates.length; i++) {
+                Load load = candidates[(start + i) % candidates.length];
+                long score = load.score.get();
+                int open = load.openTickets.get();
+                if (score < bestScore || (score == bestScore && open < bestOpen)) {
+                    best = load;
+                    bestScore = score;
+                    bestOpen = open;
+                }
+            }
+            
+            // Lost a race: someone changed this agent's load since the scan, so look again
+            if (!best.score.compareAndSet(bestScore, bestScore + weight)) {
+                continue;
+            }
+            best.openTickets.incrementAndGet();
+            
+            Load reserved = best;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            reserved.add(-weight, -1);
+                        }
+                    }
+                });
+            }
+            return Optional.of(reserved.agentId);
+        }
+    }
+    
+    // Change hooks: statusChanged and assigneeChanged take the ticket as it was before the change;
+    // the difference is applied when the surrounding transaction commits
+    
+    public void statusChanged(Ticket ticket, TicketStatus newStatus) {
+        boolean wasOpen = TicketStatsService.OPEN_STATUSES.contains(ticket.getStatus());
+        boolean open = TicketStatsService.OPEN_STATUSES.contains(newStatus);
+        if (ticket.getAssignedTo() == null || wasOpen == open) {
+            return;
+        }
+        Long agentId = ticket.getAssignedTo().getId();
+        int weight = properties.weightOf(ticket.getPriority());
+        
+        onCommit(() -> adjust(agentId, open ? weight : -weight, open ? 1 : -1));
+    }
+    
+    public void assigneeChanged(Ticket ticket, User newAssignee) {
+        if (!TicketStatsService.OPEN_STATUSES.contains(ticket.getStatus())) {
+            return;
+        }
+        Long oldAgentId = ticket.getAssignedTo() != null ? ticket.getAssignedTo().getId() : null;
+        Long newAgentId = newAssignee.getId();
+        int weight = properties.weightOf(ticket.getPriority());
+        
+        onCommit(() -> {
+            if (oldAgentId != null) {
+                adjust(oldAgentId, -weight, -1);
+            }
+            adjust(newAgentId, weight, 1);
+        });
+    }
+    
+    // Role or enabled flag of a user may have changed
+    public void userChanged(User user) {
+        Long id = user.getId();
+        boolean eligible = user.getRole() == Role.SUPPORT_AGENT && Boolean.TRUE.equals(user.getEnabled());
+        
+        onCommit(() -> {
+            synchronized (this) {
+                loads.computeIfAbsent(id, Load::new).eligible = eligible;
+                refreshAgents();
+            }
+        });
+    }
+    
+    public void userDeleted(Long id) {
+        onCommit(() -> {
+            synchronized (this) {
+                loads.remove(id);
+                refreshAgents();
+            }
+        });
+    }
+    
+    private void adjust(Long agentId, long weight, int tickets) {
+        loads.computeIfAbsent(agentId, Load::new).add(weight, tickets);
+    }
+    
+    // Callers hold the monitor, so concurrent refreshes cannot publish an outdated array
+    private void refreshAgents() {
+        agents = loads.values().stream()
+                .filter(load -> load.eligible)
+                .toArray(Load[]::new);
+    }
+    
+    private void onCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+    
+    private static final class Load {
+        private final Long agentId;
+        private final AtomicLong score = new AtomicLong();
+        private final AtomicInteger openTickets = new AtomicInteger();
+        private volatile boolean eligible;
+        
+        private Load(Long agentId) {
+            this.agentId = agentId;
+        }
+        
+        private void add(long weight, int tickets) {
+            score.addAndGet(weight);
+            openTickets.addAndGet(tickets);
+        }
+    }
+}
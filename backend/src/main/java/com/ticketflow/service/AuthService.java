@@ -20,6 +20,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final AgentLoadIndex agentLoadIndex;
     
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -41,6 +42,7 @@ public class AuthService {
                 .build();
         
         user = userRepository.save(user);
+        agentLoadIndex.userChanged(user);
         
         String token = jwtUtil.generateToken(user);
         
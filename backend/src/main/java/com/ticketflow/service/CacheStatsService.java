@@ -0,0 +1,47 @@
+package com.ticketflow.service;
+
+import com.ticketflow.dto.CacheStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the standard JCache statistics MBeans that the second-level cache regions
+ * register (see cache/caffeine-jcache.conf), so hit rates and evictions can be checked
+ * without a JMX client.
+ */
+@Service
+@Slf4j
+public class CacheStatsService {
+    
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    
+    public List<CacheStatsResponse> getCacheStats() {
+        List<CacheStatsResponse> stats = new ArrayList<>();
+        try {
+            for (ObjectName name : mBeanServer.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                stats.add(CacheStatsResponse.builder()
+                        .region(name.getKeyProperty("Cache"))
+                        .hits((Long) mBeanServer.getAttribute(name, "CacheHits"))
+                        .misses((Long) mBeanServer.getAttribute(name, "CacheMisses"))
+                        .hitPercentage((Float) mBeanServer.getAttribute(name, "CacheHitPercentage"))
+                        .puts((Long) mBeanServer.getAttribute(name, "CachePuts"))
+                        .removals((Long) mBeanServer.getAttribute(name, "CacheRemovals"))
+                        .evictions((Long) mBeanServer.getAttribute(name, "CacheEvictions"))
+                        .build());
+            }
+        } catch (JMException e) {
+            log.error("Could not read cache statistics", e);
+            throw new RuntimeException("Could not read cache statistics");
+        }
+        stats.sort(Comparator.comparing(CacheStatsResponse::getRegion));
+        return stats;
+    }
+}
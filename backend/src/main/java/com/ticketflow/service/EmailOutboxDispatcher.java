@@ -0,0 +1,225 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.MailDeliveryProperties;
+import com.ticketflow.config.MailDigestProperties;
+import com.ticketflow.config.MailOutboxProperties;
+import com.ticketflow.dto.OutboxEmailResponse;
+import com.ticketflow.model.OutboxEmail;
+import com.ticketflow.model.OutboxStatus;
+import com.ticketflow.repository.OutboxEmailRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the email outbox. Each round claims a batch of due messages (row locks with SKIP LOCKED,
+ * so several instances can dispatch side by side) by pushing their next attempt out by a lease,
+ * commits, and only then hands them to the {@link SmtpDeliveryPool}: no transaction or database
+ * connection is held while mail is sent.
+ * Outcomes are recorded per message; failures are retried with exponential backoff and jitter and
+ * end up in the DEAD state after the configured number of attempts. Delivery is at least once.
+ * In digest mode new messages are held for the digest window (see EmailService#queue); once a
+ * recipient's oldest message is due, all of their held messages are claimed with it and sent as a
+ * single digest email. The outbox is the buffer, so memory stays bounded by the batch size and held
+ * messages survive a crash; on shutdown they are flushed without waiting out the window.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+    
+    private final OutboxEmailRepository outboxRepository;
+    private final SmtpDeliveryPool deliveryPool;
+    private final MailOutboxProperties properties;
+    private final MailDeliveryProperties deliveryProperties;
+    private final MailDigestProperties digestProperties;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Scheduled(
+            initialDelayString = "${ticket.mail.outbox.poll-interval-ms:2000}",
+            fixedDelayString = "${ticket.mail.outbox.poll-interval-ms:2000}"
+    )
+    public void dispatch() {
+        drain(Duration.ZERO, Long.MAX_VALUE);
+    }
+    
+    // Held digest messages are sent right away instead of waiting out their window
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        if (digestProperties.isEnabled()) {
+            drain(digestProperties.getWindow(), System.nanoTime() + digestProperties.getShutdownFlushTimeout().toNanos());
+        }
+    }
+    
+    private void drain(Duration lookahead, long deadlineNanos) {
+        List<OutboxEmail> batch;
+        do {
+            batch = claimDue(lookahead);
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        } while (batch.size() == properties.getBatchSize() && System.nanoTime() < deadlineNanos);
+    }
+    
+    @Scheduled(
+            initialDelayString = "${ticket.mail.outbox.purge-interval-ms:3600000}",
+            fixedDelayString = "${ticket.mail.outbox.purge-interval-ms:3600000}"
+    )
+    @Transactional
+    public void purgeSent() {
+        int deleted = outboxRepository.deleteByStatusAndSentAtBefore(OutboxStatus.SENT,
+                LocalDateTime.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.debug("Purged {} sent outbox emails", deleted);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public List<OutboxEmailResponse> getDeadLetters() {
+        return outboxRepository.findByStatusOrderByCreatedAtDesc(OutboxStatus.DEAD).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    // Puts a dead message back in the queue with a fresh set of attempts
+    @Transactional
+    public OutboxEmailResponse retry(Long id) {
+        OutboxEmail email = outboxRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Outbox email not found"));
+        if (email.getStatus() != OutboxStatus.DEAD) {
+            throw new RuntimeException("Only dead emails can be retried");
+        }
+        email.setStatus(OutboxStatus.PENDING);
+        email.setAttempts(0);
+        email.setNextAttemptAt(LocalDateTime.now());
+        return mapToResponse(email);
+    }
+    
+    private List<OutboxEmail> claimDue(Duration lookahead) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEmail> due = digestProperties.isEnabled()
+                    ? outboxRepository.lockDueByRecipient(now.plus(lookahead), properties.getBatchSize())
+                    : outboxRepository.lockDue(now.plus(lookahead), properties.getBatchSize());
+            due.forEach(email -> email.setNextAttemptAt(now.plus(properties.getLease())));
+            return due;
+        });
+    }
+    
+    private void send(List<OutboxEmail> batch) {
+        // One email per recipient (and per max-items notifications) in digest mode, otherwise one per outbox row
+        List<List<OutboxEmail>> groups = digestProperties.isEnabled()
+                ? batch.stream()
+                        .collect(Collectors.groupingBy(OutboxEmail::getRecipient, LinkedHashMap::new, Collectors.toList()))
+                        .values().stream()
+                        .flatMap(group -> chunks(group, digestProperties.getMaxItems()).stream())
+                        .collect(Collectors.toList())
+                : batch.stream().map(List::of).collect(Collectors.toList());
+        SimpleMailMessage[] messages = groups.stream()
+                .map(group -> group.size() == 1
+                        ? emailService.buildMessage(group.get(0))
+                        : emailService.buildDigestMessage(group.get(0).getRecipient(), group))
+                .toArray(SimpleMailMessage[]::new);
+        
+        // Sent in parallel over the pool's connections; an outcome that does not arrive in time counts as a
+        // failure and is retried (the message may still go out, delivery is at least once)
+        Duration timeout = deliveryProperties.getSendTimeout();
+        List<CompletableFuture<Exception>> results = Arrays.stream(messages)
+                .map(message -> deliveryPool.submit(message).completeOnTimeout(
+                        new TimeoutException("No SMTP outcome within " + timeout), timeout.toMillis(), TimeUnit.MILLISECONDS))
+                .collect(Collectors.toList());
+        
+        List<Long> sent = new ArrayList<>();
+        Map<Long, Exception> failed = new HashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = results.get(i).join();
+            for (OutboxEmail email : groups.get(i)) {
+                if (failure == null) {
+                    sent.add(email.getId());
+                } else {
+                    failed.put(email.getId(), failure);
+                }
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                outboxRepository.markSent(sent, OutboxStatus.SENT, LocalDateTime.now());
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.findAllById(failed.keySet())
+                        .forEach(email -> recordFailure(email, failed.get(email.getId())));
+            }
+        });
+        log.info("Outbox batch of {} notifications in {} emails: {} sent, {} failed",
+                batch.size(), messages.length, sent.size(), failed.size());
+    }
+    
+    private void recordFailure(OutboxEmail email, Exception failure) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(String.valueOf(failure.getMessage()), 1000));
+        
+        if (attempts >= properties.getMaxAttempts()) {
+            email.setStatus(OutboxStatus.DEAD);
+            log.error("Giving up on outbox email {} to {} after {} attempts: {}",
+                    email.getId(), email.getRecipient(), attempts, failure.getMessage());
+            return;
+        }
+        email.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+    }
+    
+    // Exponential backoff with "equal jitter": between half and all of the doubled delay
+    private Duration backoff(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long delay = Math.min(initial << Math.min(attempts - 1, 30), properties.getMaxBackoff().toMillis());
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+    
+    private static <T> List<List<T>> chunks(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += Math.max(size, 1)) {
+            chunks.add(list.subList(from, Math.min(from + Math.max(size, 1), list.size())));
+        }
+        return chunks;
+    }
+    
+    private String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+    
+    private OutboxEmailResponse mapToResponse(OutboxEmail email) {
+        return OutboxEmailResponse.builder()
+                .id(email.getId())
+                .recipient(email.getRecipient())
+                .subject(email.getSubject())
+                .status(email.getStatus())
+                .attempts(email.getAttempts())
+                .nextAttemptAt(email.getNextAttemptAt())
+                .lastError(email.getLastError())
+                .createdAt(email.getCreatedAt())
+                .sentAt(email.getSentAt())
+                .build();
+    }
+}
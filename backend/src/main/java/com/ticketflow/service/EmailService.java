@@ -1,107 +1,103 @@
 package com.ticketflow.service;
 
+import com.ticketflow.config.MailDigestProperties;
+import com.ticketflow.model.OutboxEmail;
 import com.ticketflow.model.Ticket;
 import com.ticketflow.model.TicketStatus;
 import com.ticketflow.model.User;
+import com.ticketflow.repository.OutboxEmailRepository;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private final OutboxEmailRepository outboxRepository;
+    private final MailDigestProperties digestProperties;
+    private final MailTemplates mailTemplates;
     
-    public void sendTicketCreatedEmail(Ticket ticket) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(ticket.getCreatedBy().getEmail());
-            message.setSubject("Ticket Created - #" + ticket.getId());
-            message.setText(String.format(
-                    "Hello %s,\n\n" +
-                    "Your ticket has been created successfully.\n\n" +
-                    "Ticket #%d\n" +
-                    "Subject: %s\n" +
-                    "Priority: %s\n" +
-                    "Status: %s\n\n" +
-                    "We will review your ticket and get back to you soon.\n\n" +
-                    "Best regards,\n" +
-                    "TicketFlow Support Team",
-                    ticket.getCreatedBy().getFullName(),
-                    ticket.getId(),
-                    ticket.getSubject(),
-                    ticket.getPriority(),
-                    ticket.getStatus()
-            ));
-            
-            mailSender.send(message);
-            log.info("Ticket created email sent to: {}", ticket.getCreatedBy().getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send ticket created email", e);
+    // Stores the emails in the outbox as part of the caller's transaction; EmailOutboxDispatcher
+    // delivers them once that transaction has committed, so callers never wait for SMTP. In digest
+    // mode they are held for the digest window so that a recipient's notifications go out together.
+    public void queue(List<OutboxEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
         }
+        LocalDateTime due = LocalDateTime.now().plus(digestProperties.isEnabled() ? digestProperties.getWindow() : Duration.ZERO);
+        emails.forEach(email -> email.setNextAttemptAt(due));
+        outboxRepository.saveAll(emails);
     }
     
-    public void sendTicketAssignedEmail(Ticket ticket, User assignee) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(assignee.getEmail());
-            message.setSubject("Ticket Assigned - #" + ticket.getId());
-            message.setText(String.format(
-                    "Hello %s,\n\n" +
-                    "A new ticket has been assigned to you.\n\n" +
-                    "Ticket #%d\n" +
-                    "Subject: %s\n" +
-                    "Priority: %s\n" +
-                    "Status: %s\n" +
-                    "Created by: %s\n\n" +
-                    "Please review and respond to the ticket.\n\n" +
-                    "Best regards,\n" +
-                    "TicketFlow Support Team",
-                    assignee.getFullName(),
-                    ticket.getId(),
-                    ticket.getSubject(),
-                    ticket.getPriority(),
-                    ticket.getStatus(),
-                    ticket.getCreatedBy().getFullName()
-            ));
-            
-            mailSender.send(message);
-            log.info("Ticket assigned email sent to: {}", assignee.getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send ticket assigned email", e);
-        }
+    public void queue(OutboxEmail email) {
+        queue(List.of(email));
+    }
+    
+    public OutboxEmail buildTicketCreatedEmail(Ticket ticket) {
+        return email(ticket.getCreatedBy().getEmail(), MailTemplates.TICKET_CREATED,
+                ticket.getCreatedBy().getFullName(), ticket, null, null);
+    }
+    
+    public OutboxEmail buildTicketAssignedEmail(Ticket ticket, User assignee) {
+        return email(assignee.getEmail(), MailTemplates.TICKET_ASSIGNED,
+                assignee.getFullName(), ticket, null, null);
     }
     
-    public void sendTicketStatusChangedEmail(Ticket ticket, TicketStatus oldStatus, TicketStatus newStatus) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(ticket.getCreatedBy().getEmail());
-            message.setSubject("Ticket Status Updated - #" + ticket.getId());
-            message.setText(String.format(
-                    "Hello %s,\n\n" +
-                    "The status of your ticket has been updated.\n\n" +
-                    "Ticket #%d\n" +
-                    "Subject: %s\n" +
-                    "Previous Status: %s\n" +
-                    "New Status: %s\n\n" +
-                    "Thank you for using TicketFlow.\n\n" +
-                    "Best regards,\n" +
-                    "TicketFlow Support Team",
-                    ticket.getCreatedBy().getFullName(),
-                    ticket.getId(),
-                    ticket.getSubject(),
-                    oldStatus,
-                    newStatus
-            ));
-            
-            mailSender.send(message);
-            log.info("Ticket status changed email sent to: {}", ticket.getCreatedBy().getEmail());
-        } catch (Exception e) {
-            log.error("Failed to send ticket status changed email", e);
+    public OutboxEmail buildTicketStatusChangedEmail(Ticket ticket, TicketStatus oldStatus, TicketStatus newStatus) {
+        return email(ticket.getCreatedBy().getEmail(), MailTemplates.TICKET_STATUS_CHANGED,
+                ticket.getCreatedBy().getFullName(), ticket, oldStatus, newStatus);
+    }
+    
+    // One email summarizing several notifications to the same recipient, oldest first; callers keep
+    // the number of notifications within ticket.mail.digest.max-items
+    public SimpleMailMessage buildDigestMessage(String recipient, List<OutboxEmail> emails) {
+        StringBuilder updates = new StringBuilder();
+        for (OutboxEmail email : emails) {
+            if (!updates.isEmpty()) {
+                updates.append('\n');
+            }
+            updates.append("- ").append(email.getSummary() != null ? email.getSummary() : email.getSubject());
         }
+        // In the order of MailTemplates.DIGEST_VARIABLES
+        MailTemplates.Rendered rendered = mailTemplates.render(MailTemplates.TICKET_DIGEST, emails.size(), updates);
+        
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(recipient.split(","));
+        message.setSubject(rendered.subject());
+        message.setText(rendered.body());
+        return message;
+    }
+    
+    public SimpleMailMessage buildMessage(OutboxEmail email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(email.getRecipient().split(","));
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+    
+    private OutboxEmail email(String recipient, String template, String recipientName, Ticket ticket,
+                              TicketStatus oldStatus, TicketStatus newStatus) {
+        // In the order of MailTemplates.VARIABLES
+        MailTemplates.Rendered rendered = mailTemplates.render(template,
+                recipientName,
+                ticket.getId(),
+                ticket.getSubject(),
+                ticket.getPriority(),
+                ticket.getStatus(),
+                ticket.getCreatedBy().getFullName(),
+                oldStatus,
+                newStatus);
+        return OutboxEmail.builder()
+                .recipient(recipient)
+                .subject(rendered.subject())
+                .summary(rendered.summary())
+                .body(rendered.body())
+                .build();
     }
 }
@@ -1,6 +1,7 @@
 package com.ticketflow.service;
 
 import com.ticketflow.dto.AttachmentResponse;
+import com.ticketflow.dto.TicketEvent;
 import com.ticketflow.dto.UserResponse;
 import com.ticketflow.model.Attachment;
 import com.ticketflow.model.Role;
@@ -8,6 +9,7 @@ import com.ticketflow.model.Ticket;
 import com.ticketflow.model.User;
 import com.ticketflow.repository.AttachmentRepository;
 import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -34,6 +36,9 @@ public class FileService {
     
     private final AttachmentRepository attachmentRepository;
     private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    private final TicketCounters ticketCounters;
+    private final TicketEventBus ticketEventBus;
     
     @Value("${file.upload-dir}")
     private String uploadDir;
@@ -43,6 +48,11 @@ public class FileService {
         return (User) authentication.getPrincipal();
     }
     
+    // Built from the token and detached (see TicketService); attachments get a managed reference
+    private User getCurrentUserReference(User currentUser) {
+        return userRepository.getReferenceById(currentUser.getId());
+    }
+    
     @Transactional
     public AttachmentResponse uploadFile(Long ticketId, MultipartFile file) throws IOException {
         Ticket ticket = ticketRepository.findById(ticketId)
@@ -79,10 +89,12 @@ public class FileService {
                 .fileType(file.getContentType())
                 .fileSize(file.getSize())
                 .ticket(ticket)
-                .uploadedBy(currentUser)
+                .uploadedBy(getCurrentUserReference(currentUser))
                 .build();
         
         attachment = attachmentRepository.save(attachment);
+        ticketCounters.incrementAttachmentCount(ticketId);
+        ticketEventBus.publish(TicketEvent.Type.ATTACHMENT_ADDED, ticket);
         
         return mapToAttachmentResponse(attachment);
     }
@@ -0,0 +1,220 @@
+package com.ticketflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel: timeouts are hashed by their expiry tick into a fixed ring of buckets,
+ * so scheduling and cancelling are O(1) and each tick only visits one bucket, however many
+ * timeouts are pending. Deadlines further away than one revolution wait in their bucket with
+ * a rounds counter. Expiry is accurate to one tick.
+ * A single worker thread owns the buckets; other threads hand new and cancelled timeouts over
+ * through lock-free queues. Tasks run on the worker thread and must be short.
+ */
+@Slf4j
+class HashedTimerWheel {
+    
+    // Upper bound on new timeouts moved into the wheel per tick, so a burst cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+    
+    HashedTimerWheel(String name, Duration tickDuration, int ticksPerWheel) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        int buckets = Integer.highestOneBit(Math.max(ticksPerWheel, 1) * 2 - 1);
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+    
+    Timeout schedule(Runnable task, Duration delay) {
+        long deadline = System.nanoTime() + Math.max(delay.toNanos(), 0) - startNanos;
+        Timeout timeout = new Timeout(task, deadline);
+        size.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+    
+    // Timeouts scheduled and neither expired nor cancelled yet
+    long size() {
+        return size.get();
+    }
+    
+    void stop() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (now < 0) {
+                continue;
+            }
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+    }
+    
+    // Sleeps until the end of the current tick and returns the elapsed time, or -1 if interrupted
+    private long waitForNextTick() {
+        long tickEnd = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepNanos = tickEnd - now;
+            if (sleepNanos <= 0) {
+                return now;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+    }
+    
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // Already overdue timeouts go into the current bucket and expire this tick
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+    
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+    
+    final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+        
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+        
+        boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            size.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+        
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            size.decrementAndGet();
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Timer task failed", e);
+            }
+        }
+    }
+    
+    // Doubly linked list of timeouts, only touched by the worker thread
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+        
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+        
+        private void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= now) {
+                        timeout.expire();
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+        
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ticketflow.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A template compiled once into alternating literal text and variable slots, so rendering is a
+ * walk over the segments with no parsing. Placeholders are written {{name}} and are bound to the
+ * position of name in the variable list at compile time; an unknown name fails the compilation.
+ */
+final class MailTemplate {
+    
+    private final String[] literals;
+    // Variable rendered after literals[i]; one fewer than there are literals
+    private final int[] slots;
+    private final int sizeHint;
+    
+    private MailTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int size = 0;
+        for (String literal : literals) {
+            size += literal.length();
+        }
+        this.sizeHint = size + slots.length * 16;
+    }
+    
+    static MailTemplate compile(String source, List<String> variables) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String name = source.substring(open + 2, close).trim();
+            int slot = variables.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}, expected one of " + variables);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            pos = close + 2;
+        }
+        literals.add(source.substring(pos));
+        return new MailTemplate(literals.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+    
+    // values are indexed like the variable list the template was compiled with
+    void renderTo(StringBuilder out, Object[] values) {
+        out.ensureCapacity(out.length() + sizeHint);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]).append(values[slots[i]]);
+        }
+        out.append(literals[slots.length]);
+    }
+}
@@ -0,0 +1,171 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.MailTemplateProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notification email templates, compiled once into {@link MailTemplate}s and rendered into a
+ * per-thread buffer. Each template is a <name>.txt file: "Subject:" and "Summary:" header lines,
+ * a blank line, then the body. The built-in ones live in classpath:mail-templates; a file of the
+ * same name in ticket.mail.templates.dir overrides them and is recompiled when it changes, without
+ * a restart. A template that fails to compile is reported and the previous version kept.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MailTemplates {
+    
+    public static final String TICKET_CREATED = "ticket-created";
+    public static final String TICKET_ASSIGNED = "ticket-assigned";
+    public static final String TICKET_STATUS_CHANGED = "ticket-status-changed";
+    public static final String TICKET_DIGEST = "ticket-digest";
+    
+    // Every ticket template can use all of these; values are passed to render in this order
+    public static final List<String> VARIABLES = List.of(
+            "recipientName", "ticketId", "ticketSubject", "priority", "status", "createdBy", "oldStatus", "newStatus");
+    
+    // Same for the digest template; updates holds one "- summary" line per merged notification
+    public static final List<String> DIGEST_VARIABLES = List.of("updateCount", "updates");
+    
+    private static final List<String> NAMES = List.of(TICKET_CREATED, TICKET_ASSIGNED, TICKET_STATUS_CHANGED, TICKET_DIGEST);
+    
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+    
+    private final MailTemplateProperties properties;
+    
+    private final Map<String, Compiled> templates = new ConcurrentHashMap<>();
+    
+    public record Rendered(String subject, String summary, String body) {
+    }
+    
+    @PostConstruct
+    void load() {
+        for (String name : NAMES) {
+            templates.put(name, compile(name, read(new ClassPathResource("mail-templates/" + name + ".txt")), 0));
+        }
+        reload();
+    }
+    
+    // Picks up override files that were added, changed or removed since the last check
+    @Scheduled(
+            initialDelayString = "${ticket.mail.templates.reload-interval-ms:5000}",
+            fixedDelayString = "${ticket.mail.templates.reload-interval-ms:5000}"
+    )
+    public void reload() {
+        for (String name : NAMES) {
+            Path file = overrideFile(name);
+            long modified = lastModified(file);
+            Compiled current = templates.get(name);
+            if (modified == current.modified()) {
+                continue;
+            }
+            try {
+                String source = modified != 0
+                        ? Files.readString(file, StandardCharsets.UTF_8)
+                        : read(new ClassPathResource("mail-templates/" + name + ".txt"));
+                templates.put(name, compile(name, source, modified));
+                log.info("Loaded mail template {} from {}", name, modified != 0 ? file : "classpath");
+            } catch (IOException | RuntimeException e) {
+                log.error("Keeping previous mail template {}: {}", name, e.getMessage());
+                // Not retried until the file changes again
+                templates.put(name, new Compiled(current.subject(), current.summary(), current.body(), modified));
+            }
+        }
+    }
+    
+    public Rendered render(String name, Object... values) {
+        Compiled template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        StringBuilder buffer = BUFFER.get();
+        return new Rendered(
+                render(template.subject(), buffer, values),
+                render(template.summary(), buffer, values),
+                render(template.body(), buffer, values)
+        );
+    }
+    
+    private String render(MailTemplate template, StringBuilder buffer, Object[] values) {
+        buffer.setLength(0);
+        template.renderTo(buffer, values);
+        return buffer.toString();
+    }
+    
+    private Compiled compile(String name, String source, long modified) {
+        String subject = null;
+        String summary = null;
+        int pos = 0;
+        while (true) {
+            int end = source.indexOf('\n', pos);
+            if (end < 0) {
+                throw new IllegalArgumentException("Template " + name + " has no body");
+            }
+            String line = source.substring(pos, end).strip();
+            pos = end + 1;
+            if (line.isEmpty()) {
+                break;
+            } else if (line.startsWith("Subject:")) {
+                subject = line.substring("Subject:".length()).strip();
+            } else if (line.startsWith("Summary:")) {
+                summary = line.substring("Summary:".length()).strip();
+            } else {
+                throw new IllegalArgumentException("Template " + name + " has an unknown header: " + line);
+            }
+        }
+        if (subject == null) {
+            throw new IllegalArgumentException("Template " + name + " has no Subject header");
+        }
+        // A trailing newline is not part of the body
+        String body = source.substring(pos).replace("\r\n", "\n");
+        if (body.endsWith("\n")) {
+            body = body.substring(0, body.length() - 1);
+        }
+        List<String> variables = name.equals(TICKET_DIGEST) ? DIGEST_VARIABLES : VARIABLES;
+        return new Compiled(
+                MailTemplate.compile(subject, variables),
+                MailTemplate.compile(summary != null ? summary : subject, variables),
+                MailTemplate.compile(body, variables),
+                modified
+        );
+    }
+    
+    private Path overrideFile(String name) {
+        return properties.getDir().isBlank() ? null : Path.of(properties.getDir(), name + ".txt");
+    }
+    
+    // 0 when there is no override file
+    private long lastModified(Path file) {
+        try {
+            return file != null && Files.isRegularFile(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private String read(ClassPathResource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + resource.getPath(), e);
+        }
+    }
+    
+    private record Compiled(MailTemplate subject, MailTemplate summary, MailTemplate body, long modified) {
+    }
+}
@@ -0,0 +1,299 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.SlaProperties;
+import com.ticketflow.dto.SlaEventResponse;
+import com.ticketflow.dto.SlaStatusResponse;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.repository.TicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Tracks response and resolve deadlines of every open ticket. Each tracked ticket has exactly
+ * one pending timeout in a {@link HashedTimerWheel}, for its next milestone (at risk, then
+ * breached, first for the response target and then for the resolve target); when it fires
+ * the state is escalated, an event is logged and the following milestone is armed. Nothing
+ * polls the database: tickets are loaded once on startup and then follow status changes.
+ * A ticket is responded to when it leaves OPEN and resolved when it reaches RESOLVED or CLOSED.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlaService {
+    
+    private enum Target { RESPONSE, RESOLVE }
+    
+    // Ordered by severity; MET only applies to the response target
+    private enum State { ON_TRACK, AT_RISK, BREACHED, MET }
+    
+    private final TicketRepository ticketRepository;
+    private final SlaProperties properties;
+    
+    private final Map<Long, TrackedTicket> tracked = new ConcurrentHashMap<>();
+    private final Set<Long> atRisk = ConcurrentHashMap.newKeySet();
+    private final Deque<SlaEventResponse> events = new ArrayDeque<>();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private HashedTimerWheel wheel;
+    
+    @PostConstruct
+    void init() {
+        wheel = new HashedTimerWheel("sla-timer", properties.getTickDuration(), properties.getTicksPerWheel());
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        wheel.stop();
+    }
+    
+    // Milestones already passed at startup update the state without emitting events
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadOpenTickets() {
+        try (Stream<Object[]> rows = ticketRepository.streamSlaCandidates(List.of(TicketStatus.OPEN, TicketStatus.IN_PROGRESS))) {
+            rows.forEach(row -> track((Long) row[0], (Priority) row[1], (TicketStatus) row[2], (LocalDateTime) row[3], false));
+        }
+        log.info("SLA tracking {} open tickets, {} at risk or breached", tracked.size(), atRisk.size());
+    }
+    
+    // Re-arms the ticket's deadlines for its new status once the change commits
+    public void statusChanged(Ticket ticket, TicketStatus newStatus) {
+        Long id = ticket.getId();
+        Priority priority = ticket.getPriority();
+        LocalDateTime createdAt = ticket.getCreatedAt();
+        onCommit(() -> track(id, priority, newStatus, createdAt, true));
+    }
+    
+    // Starts tracking a ticket that was written without going through TicketService (e.g. imports)
+    public void track(Ticket ticket) {
+        track(ticket.getId(), ticket.getPriority(), ticket.getStatus(), ticket.getCreatedAt(), false);
+    }
+    
+    public List<SlaEventResponse> getEvents(long afterId, int limit) {
+        synchronized (events) {
+            return events.stream()
+                    .filter(event -> event.getId() > afterId)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+    
+    public List<SlaStatusResponse> getAtRisk() {
+        List<SlaStatusResponse> result = new ArrayList<>();
+        for (Long id : atRisk) {
+            TrackedTicket ticket = tracked.get(id);
+            if (ticket != null) {
+                result.add(ticket.toResponse());
+            }
+        }
+        result.sort(Comparator.comparing(SlaStatusResponse::getResolveDeadline));
+        return result;
+    }
+    
+    public SlaStatusResponse getTicketSla(Long ticketId) {
+        TrackedTicket ticket = tracked.get(ticketId);
+        if (ticket == null) {
+            throw new RuntimeException("Ticket is not tracked by the SLA engine (unknown, resolved or closed)");
+        }
+        return ticket.toResponse();
+    }
+    
+    // Pending deadline timers, for monitoring
+    public long getPendingTimers() {
+        return wheel.size();
+    }
+    
+    private void track(Long id, Priority priority, TicketStatus status, LocalDateTime createdAt, boolean live) {
+        SlaProperties.Target target = properties.getTargets().get(priority);
+        if (target == null || status == TicketStatus.RESOLVED || status == TicketStatus.CLOSED) {
+            TrackedTicket removed = tracked.remove(id);
+            atRisk.remove(id);
+            if (removed != null) {
+                synchronized (removed) {
+                    removed.disarm();
+                }
+            }
+            return;
+        }
+        
+        TrackedTicket ticket = tracked.computeIfAbsent(id, key -> new TrackedTicket(key, priority, createdAt, target));
+        synchronized (ticket) {
+            ticket.status = status;
+            if (status != TicketStatus.OPEN && ticket.responseState != State.BREACHED) {
+                ticket.responseState = State.MET;
+            }
+            arm(ticket, live);
+            // Responding can take the only at-risk target off the list
+            if (!ticket.isAtRisk()) {
+                atRisk.remove(id);
+            }
+        }
+    }
+    
+    // Applies every milestone that is already due and schedules a timeout for the next one
+    private void arm(TrackedTicket ticket, boolean live) {
+        ticket.disarm();
+        LocalDateTime now = LocalDateTime.now();
+        Milestone next;
+        while ((next = ticket.nextMilestone()) != null) {
+            if (next.at().isAfter(now)) {
+                long generation = ++ticket.generation;
+                ticket.timeout = wheel.schedule(() -> fire(ticket, generation), Duration.between(now, next.at()));
+                return;
+            }
+            reach(ticket, next, live);
+        }
+    }
+    
+    private void fire(TrackedTicket ticket, long generation) {
+        synchronized (ticket) {
+            // A status change re-armed the ticket after this timeout was scheduled
+            if (ticket.generation != generation || tracked.get(ticket.id) != ticket) {
+                return;
+            }
+            ticket.timeout = null;
+            arm(ticket, true);
+        }
+    }
+    
+    private void reach(TrackedTicket ticket, Milestone milestone, boolean live) {
+        if (milestone.target() == Target.RESPONSE) {
+            ticket.responseState = milestone.state();
+        } else {
+            ticket.resolveState = milestone.state();
+        }
+        atRisk.add(ticket.id);
+        
+        if (!live) {
+            return;
+        }
+        SlaEventResponse event = SlaEventResponse.builder()
+                .id(eventSequence.incrementAndGet())
+                .ticketId(ticket.id)
+                .priority(ticket.priority)
+                .target(milestone.target().name())
+                .state(milestone.state().name())
+                .deadline(milestone.target() == Target.RESPONSE ? ticket.responseDeadline : ticket.resolveDeadline)
+                .occurredAt(LocalDateTime.now())
+                .build();
+        synchronized (events) {
+            events.addLast(event);
+            while (events.size() > properties.getMaxEvents()) {
+                events.removeFirst();
+            }
+        }
+        log.warn("SLA {} target of ticket #{} is {}", milestone.target(), ticket.id, milestone.state());
+    }
+    
+    private void onCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+    
+    private Duration scale(Duration target) {
+        return Duration.ofMillis((long) (target.toMillis() * properties.getWarningRatio()));
+    }
+    
+    private record Milestone(Target target, State state, LocalDateTime at) {
+    }
+    
+    private final class TrackedTicket {
+        private final Long id;
+        private final Priority priority;
+        private final LocalDateTime responseWarning;
+        private final LocalDateTime responseDeadline;
+        private final LocalDateTime resolveWarning;
+        private final LocalDateTime resolveDeadline;
+        private TicketStatus status;
+        private State responseState = State.ON_TRACK;
+        private State resolveState = State.ON_TRACK;
+        private HashedTimerWheel.Timeout timeout;
+        private long generation;
+        
+        private TrackedTicket(Long id, Priority priority, LocalDateTime createdAt, SlaProperties.Target target) {
+            this.id = id;
+            this.priority = priority;
+            this.responseDeadline = createdAt.plus(target.getResponse());
+            this.responseWarning = createdAt.plus(scale(target.getResponse()));
+            this.resolveDeadline = createdAt.plus(target.getResolve());
+            this.resolveWarning = createdAt.plus(scale(target.getResolve()));
+        }
+        
+        // Earliest milestone not reached yet; the response target only counts while the ticket is OPEN
+        private Milestone nextMilestone() {
+            Milestone response = status == TicketStatus.OPEN
+                    ? next(Target.RESPONSE, responseState, responseWarning, responseDeadline)
+                    : null;
+            Milestone resolve = next(Target.RESOLVE, resolveState, resolveWarning, resolveDeadline);
+            if (response == null) {
+                return resolve;
+            }
+            if (resolve == null) {
+                return response;
+            }
+            return response.at().isAfter(resolve.at()) ? resolve : response;
+        }
+        
+        private Milestone next(Target target, State state, LocalDateTime warning, LocalDateTime deadline) {
+            return switch (state) {
+                case ON_TRACK -> new Milestone(target, State.AT_RISK, warning);
+                case AT_RISK -> new Milestone(target, State.BREACHED, deadline);
+                default -> null;
+            };
+        }
+        
+        private boolean isAtRisk() {
+            return responseState == State.AT_RISK || responseState == State.BREACHED
+                    || resolveState == State.AT_RISK || resolveState == State.BREACHED;
+        }
+        
+        private void disarm() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+        
+        private synchronized SlaStatusResponse toResponse() {
+            return SlaStatusResponse.builder()
+                    .ticketId(id)
+                    .priority(priority)
+                    .status(status)
+                    .responseDeadline(responseDeadline)
+                    .responseState(responseState.name())
+                    .resolveDeadline(resolveDeadline)
+                    .resolveState(resolveState.name())
+                    .build();
+        }
+    }
+}
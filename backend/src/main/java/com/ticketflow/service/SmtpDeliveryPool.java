@@ -0,0 +1,177 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.MailDeliveryProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends mail over a fixed set of persistent SMTP connections. Each worker thread owns one
+ * connection, opened on first use and kept across messages and batches (no handshake per
+ * message), recycled after max-messages-per-connection or when idle, and reopened once when a
+ * send fails because the connection broke. The number of workers caps how many connections and
+ * concurrent sends the SMTP server sees; the bounded queue in front of them gives backpressure,
+ * as {@link #submit} blocks while it is full. Once the pool is stopped, submit fails at once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpDeliveryPool {
+    
+    private final JavaMailSenderImpl mailSender;
+    private final MailDeliveryProperties properties;
+    
+    private BlockingQueue<Delivery> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+    
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        // Platform threads (Java 17); there are only parallelism of them and they mostly wait on SMTP
+        for (int i = 1; i <= properties.getParallelism(); i++) {
+            Thread worker = new Thread(this::work, "smtp-delivery-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+    
+    // Completes with null once the message was accepted, or with the failure; blocks while the queue is full
+    public CompletableFuture<Exception> submit(SimpleMailMessage message) {
+        Delivery delivery = new Delivery(message, new CompletableFuture<>());
+        try {
+            // Rechecked while waiting, as no worker takes from a full queue after stop
+            while (!queue.offer(delivery, 100, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    delivery.result().complete(new IllegalStateException("SMTP delivery pool stopped"));
+                    return delivery.result();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delivery.result().complete(e);
+            return delivery.result();
+        }
+        // Queued just as the workers drained the queue on their way out
+        if (!running && queue.remove(delivery)) {
+            delivery.result().complete(new IllegalStateException("SMTP delivery pool stopped"));
+        }
+        return delivery.result();
+    }
+    
+    private void work() {
+        Connection connection = new Connection();
+        try {
+            while (running) {
+                Delivery delivery;
+                try {
+                    delivery = queue.poll(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (delivery == null) {
+                    connection.close();
+                    continue;
+                }
+                delivery.result().complete(connection.send(delivery.message()));
+            }
+        } finally {
+            connection.close();
+            // Anything still queued on shutdown stays in the outbox and is retried after its lease
+            Delivery delivery;
+            while ((delivery = queue.poll()) != null) {
+                delivery.result().complete(new IllegalStateException("SMTP delivery pool stopped"));
+            }
+        }
+    }
+    
+    private record Delivery(SimpleMailMessage message, CompletableFuture<Exception> result) {
+    }
+    
+    // One worker's connection; only ever used by that worker
+    private final class Connection {
+        private Transport transport;
+        private int sent;
+        
+        private Exception send(SimpleMailMessage message) {
+            MimeMessage mimeMessage;
+            try {
+                mimeMessage = mailSender.createMimeMessage();
+                message.copyTo(new MimeMailMessage(mimeMessage));
+                mimeMessage.saveChanges();
+            } catch (Exception e) {
+                return e;
+            }
+            
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    connect();
+                    transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+                    if (++sent >= properties.getMaxMessagesPerConnection()) {
+                        close();
+                    }
+                    return null;
+                } catch (SendFailedException e) {
+                    // Rejected recipients: the connection itself is fine
+                    return e;
+                } catch (MessagingException e) {
+                    close();
+                    // A pooled connection may have been dropped by the server; try once on a fresh one
+                    if (attempt >= 2) {
+                        return e;
+                    }
+                    log.debug("SMTP connection failed, reconnecting: {}", e.getMessage());
+                }
+            }
+        }
+        
+        private void connect() throws MessagingException {
+            if (transport != null && transport.isConnected()) {
+                return;
+            }
+            // Same protocol resolution as JavaMailSenderImpl
+            String protocol = mailSender.getProtocol();
+            if (protocol == null) {
+                protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+            }
+            transport = mailSender.getSession().getTransport(protocol != null ? protocol : "smtp");
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+            sent = 0;
+        }
+        
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close SMTP connection: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.ticketflow.service;
+
+import com.ticketflow.repository.TicketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory dictionary of the words used in ticket subjects, indexed by their
+ * deletion neighbourhood (SymSpell style) so that a misspelled query term can be
+ * expanded to the real words within a given edit distance without scanning tickets.
+ * The expanded words are then matched against the trigram-indexed subject column.
+ * Built at startup and then refreshed from the tickets above an id watermark, so words
+ * from tickets created on other instances are learned too.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubjectTermIndex {
+    
+    // Shorter terms cannot use the trigram index and would match almost everything
+    public static final int MIN_TERM_LENGTH = 3;
+    
+    public static final int SIMILARITY_SCALE = 1000;
+    
+    private final TicketRepository ticketRepository;
+    
+    private final Set<String> words = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> deletes = new ConcurrentHashMap<>();
+    
+    @Value("${ticket.search.fuzzy.max-edits:2}")
+    private int maxIndexedEdits;
+    
+    @Value("${ticket.search.fuzzy.max-expansions:20}")
+    private int maxExpansions;
+    
+    // Ids come from a pooled sequence, so another instance can commit a ticket below the highest id
+    // already seen; each refresh re-reads this many ids below it
+    @Value("${ticket.search.fuzzy.refresh-overlap-ids:1000}")
+    private long refreshOverlapIds;
+    
+    // Highest ticket id whose subject has been read
+    private long watermark;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        words.clear();
+        deletes.clear();
+        // Read first: tickets committed while the words are loaded are picked up by the next refresh
+        Long maxId = ticketRepository.findMaxId();
+        ticketRepository.findDistinctSubjectWords().forEach(this::addWord);
+        watermark = maxId != null ? maxId : 0;
+        log.info("Subject term index built with {} words", words.size());
+    }
+    
+    @Scheduled(
+            initialDelayString = "${ticket.search.fuzzy.refresh-interval-ms:60000}",
+            fixedDelayString = "${ticket.search.fuzzy.refresh-interval-ms:60000}"
+    )
+    @Transactional(readOnly = true)
+    public synchronized void refresh() {
+        int before = words.size();
+        long highest = watermark;
+        try (Stream<Object[]> rows = ticketRepository.streamSubjectsAfter(Math.max(0, watermark - refreshOverlapIds))) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                highest = Math.max(highest, (Long) row[0]);
+                addSubject((String) row[1]);
+            }
+        }
+        watermark = highest;
+        if (words.size() > before) {
+            log.debug("Subject term index learned {} words, up to ticket {}", words.size() - before, highest);
+        }
+    }
+    
+    public void addSubject(String subject) {
+        tokenize(subject).forEach(this::addWord);
+    }
+    
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> token.length() >= MIN_TERM_LENGTH)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+    
+    // Edits allowed for a term of this length: 1 up to five characters, 2 beyond
+    public int allowedEdits(String term, int requested) {
+        int byLength = term.length() <= 5 ? 1 : 2;
+        return Math.max(0, Math.min(Math.min(requested, byLength), maxIndexedEdits));
+    }
+    
+    // Dictionary words within maxEdits of the term, closest first; the term itself is always included
+    public List<String> expand(String term, int maxEdits) {
+        Set<String> candidates = new HashSet<>();
+        for (String variant : deletionVariants(term, maxEdits)) {
+            Set<String> matches = deletes.get(variant);
+            if (matches != null) {
+                candidates.addAll(matches);
+            }
+        }
+        
+        List<String> expansions = candidates.stream()
+                .filter(word -> distance(term, word) <= maxEdits)
+                .sorted(Comparator.comparingInt((String word) -> distance(term, word)).thenComparing(word -> word))
+                .limit(maxExpansions)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!expansions.contains(term)) {
+            expansions.add(0, term);
+        }
+        return expansions;
+    }
+    
+    // Edit similarity of a dictionary word to a query term, in thousandths: 1000 for the term itself
+    public static int similarity(String term, String word) {
+        return SIMILARITY_SCALE - SIMILARITY_SCALE * distance(term, word) / Math.max(term.length(), word.length());
+    }
+    
+    private void addWord(String word) {
+        if (word == null || word.length() < MIN_TERM_LENGTH || !words.add(word)) {
+            return;
+        }
+        for (String variant : deletionVariants(word, maxIndexedEdits)) {
+            deletes.computeIfAbsent(variant, key -> ConcurrentHashMap.newKeySet()).add(word);
+        }
+    }
+    
+    private Set<String> deletionVariants(String word, int maxDeletes) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+        List<String> frontier = List.of(word);
+        for (int depth = 0; depth < maxDeletes; depth++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String variant = current.substring(0, i) + current.substring(i + 1);
+                    if (variants.add(variant)) {
+                        next.add(variant);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return variants;
+    }
+    
+    // Optimal string alignment distance: Levenshtein plus adjacent transpositions ("vnp" -> "vpn" is 1)
+    static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
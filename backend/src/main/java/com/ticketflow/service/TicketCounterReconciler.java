@@ -0,0 +1,48 @@
+package com.ticketflow.service;
+
+import com.ticketflow.repository.TicketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Repairs drift between the denormalized comment/attachment counters on tickets
+ * and the child tables (e.g. rows removed by hand or a failed increment).
+ * Works through id ranges so each update only locks a small slice of the table.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TicketCounterReconciler {
+    
+    private final TicketRepository ticketRepository;
+    
+    @Value("${ticket.counters.reconcile-batch-size:1000}")
+    private long batchSize;
+    
+    @Scheduled(
+            initialDelayString = "${ticket.counters.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${ticket.counters.reconcile-interval-ms:3600000}"
+    )
+    public void reconcile() {
+        Long maxId = ticketRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        
+        int repaired = 0;
+        for (long fromId = 1; fromId <= maxId; fromId += batchSize) {
+            long toId = fromId + batchSize - 1;
+            repaired += ticketRepository.reconcileCommentCounts(fromId, toId);
+            repaired += ticketRepository.reconcileAttachmentCounts(fromId, toId);
+        }
+        
+        if (repaired > 0) {
+            log.warn("Repaired {} drifted ticket counters", repaired);
+        } else {
+            log.debug("Ticket counters are consistent");
+        }
+    }
+}
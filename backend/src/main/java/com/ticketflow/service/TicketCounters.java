@@ -0,0 +1,57 @@
+package com.ticketflow.service;
+
+import com.ticketflow.model.Ticket;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Increments the denormalized comment/attachment counters and the revision of a ticket.
+ * Increments are done in the database so concurrent writers never lose one. They run as
+ * plain JDBC on the transaction's connection: a JPQL bulk update would make Hibernate
+ * drop the whole Ticket cache region on every comment, so instead only the affected
+ * ticket is evicted from the second-level cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class TicketCounters {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    
+    public void incrementCommentCount(Long ticketId) {
+        jdbcTemplate.update("UPDATE tickets SET comment_count = comment_count + 1, revision = revision + 1 WHERE id = ?", ticketId);
+        evictAfterCommit(ticketId);
+    }
+    
+    public void incrementAttachmentCount(Long ticketId) {
+        jdbcTemplate.update("UPDATE tickets SET attachment_count = attachment_count + 1, revision = revision + 1 WHERE id = ?", ticketId);
+        evictAfterCommit(ticketId);
+    }
+    
+    // Marks the ticket as changed for conditional GETs
+    public void incrementRevision(Long ticketId) {
+        jdbcTemplate.update("UPDATE tickets SET revision = revision + 1 WHERE id = ?", ticketId);
+        evictAfterCommit(ticketId);
+    }
+    
+    private void evictAfterCommit(Long ticketId) {
+        // Evict now so no reader re-caches the old count, and again after commit in case one did meanwhile
+        evict(ticketId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(ticketId);
+                }
+            });
+        }
+    }
+    
+    private void evict(Long ticketId) {
+        entityManagerFactory.getCache().evict(Ticket.class, ticketId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ticketflow.service;
+
+import com.ticketflow.model.Ticket;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Seek position in the (createdAt DESC, id DESC) ticket ordering.
+ * Clients only ever see the encoded form, which is treated as opaque.
+ */
+public record TicketCursor(LocalDateTime createdAt, Long id) {
+    
+    private static final char SEPARATOR = '|';
+    
+    public static TicketCursor of(Ticket ticket) {
+        return new TicketCursor(ticket.getCreatedAt(), ticket.getId());
+    }
+    
+    public static TicketCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            return new TicketCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
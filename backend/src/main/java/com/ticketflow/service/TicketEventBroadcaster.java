@@ -0,0 +1,284 @@
+package com.ticketflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketflow.config.TicketEventsProperties;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.User;
+import com.ticketflow.security.AccountVersions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes ticket changes to browsers over server-sent events, so open ticket views do not have to
+ * poll. Agents and admins receive every ticket's events, users only those of tickets they created
+ * (the hasAccessToTicket rule), and subscribers are indexed that way so an event only visits the
+ * connections that may see it. Each event is serialized once; the frame is queued per connection
+ * and written by a small sender pool, one drain per connection at a time, so a slow client never
+ * holds up publishing or other clients. A client whose queue overflows is disconnected and catches
+ * up on reconnect from the replay buffer via Last-Event-ID (or is told to resync if it fell out of it).
+ * Events arrive from the {@link TicketEventBus}, whose sequence numbers serve as the SSE event ids.
+ * A stream outlives the request that opened it, so every delivery re-checks the subscriber's account
+ * version against {@link AccountVersions}: once the role changes or the user is disabled or deleted,
+ * the stream is closed and the client has to reconnect with a current token.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketEventBroadcaster implements TicketEventConsumer {
+    
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("").build();
+    
+    private final TicketEventsProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AccountVersions accountVersions;
+    
+    // Agents and admins; users by id, since they only see their own tickets
+    private final Set<Subscriber> allTickets = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> byCreator = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    
+    // Guards the replay buffer and fan-out, so a new connection's replay cannot interleave with live events
+    private final Object publishLock = new Object();
+    private final Deque<PublishedEvent> recent = new ArrayDeque<>();
+    // Id of the last event broadcast
+    private final AtomicLong sequence = new AtomicLong();
+    private ExecutorService sender;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(properties.getSenderThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "ticket-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        allTickets.forEach(Subscriber::close);
+        byCreator.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+        sender.shutdownNow();
+    }
+    
+    // Opens an event stream for the current user, first replaying what they missed after lastEventId
+    public SseEmitter subscribe(Long lastEventId) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            log.warn("Rejecting event stream for {}: {} subscribers open", user.getUsername(), properties.getMaxSubscribers());
+            try {
+                emitter.send(SseEmitter.event().reconnectTime(properties.getRetry().toMillis() * 10).comment("busy"));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+            return emitter;
+        }
+        
+        // The token was accepted just now, so the stream counts as issued at this moment
+        Subscriber subscriber = new Subscriber(user.getId(), user.getRole() != Role.USER,
+                user.getAccountVersion(), new Date(), emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe(subscriber));
+        
+        subscriber.enqueue(SseEmitter.event().reconnectTime(properties.getRetry().toMillis()).comment("connected").build());
+        synchronized (publishLock) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            if (subscriber.seesAll) {
+                allTickets.add(subscriber);
+            } else {
+                byCreator.computeIfAbsent(subscriber.userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            }
+        }
+        return emitter;
+    }
+    
+    @Override
+    public String getName() {
+        return "sse";
+    }
+    
+    @Override
+    public void onEvent(TicketEvent event) {
+        broadcast(event);
+    }
+    
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(
+            initialDelayString = "${ticket.events.heartbeat-interval-ms:25000}",
+            fixedRateString = "${ticket.events.heartbeat-interval-ms:25000}"
+    )
+    public void heartbeat() {
+        allTickets.forEach(subscriber -> subscriber.enqueue(HEARTBEAT));
+        byCreator.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.enqueue(HEARTBEAT)));
+    }
+    
+    private void broadcast(TicketEvent event) {
+        synchronized (publishLock) {
+            sequence.set(event.getId());
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            try {
+                frame = SseEmitter.event()
+                        .id(String.valueOf(event.getId()))
+                        .data(objectMapper.writeValueAsString(event))
+                        .build();
+            } catch (JsonProcessingException e) {
+                log.error("Could not serialize ticket event {}", event, e);
+                return;
+            }
+            
+            recent.addLast(new PublishedEvent(event.getId(), event.getCreatedById(), frame));
+            while (recent.size() > properties.getReplaySize()) {
+                recent.removeFirst();
+            }
+            
+            allTickets.forEach(subscriber -> subscriber.enqueue(frame));
+            Set<Subscriber> owners = byCreator.get(event.getCreatedById());
+            if (owners != null) {
+                owners.forEach(subscriber -> subscriber.enqueue(frame));
+            }
+        }
+    }
+    
+    // Caller holds publishLock
+    private void replay(Subscriber subscriber, long lastEventId) {
+        PublishedEvent oldest = recent.peekFirst();
+        long last = sequence.get();
+        // Events the client missed are no longer buffered, or the ids restarted with the server:
+        // it has to reload what it shows
+        if (lastEventId > last || (lastEventId < last && (oldest == null || oldest.id() > lastEventId + 1))) {
+            subscriber.enqueue(SseEmitter.event().name("resync").data("").build());
+            return;
+        }
+        for (PublishedEvent event : recent) {
+            if (event.id() > lastEventId && (subscriber.seesAll || event.createdById().equals(subscriber.userId))) {
+                subscriber.enqueue(event.frame());
+            }
+        }
+    }
+    
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        if (subscriber.seesAll) {
+            allTickets.remove(subscriber);
+        } else {
+            byCreator.computeIfPresent(subscriber.userId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+    
+    private record PublishedEvent(long id, Long createdById, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+    
+    private final class Subscriber {
+        private final Long userId;
+        private final boolean seesAll;
+        private final int accountVersion;
+        private final Date openedAt;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        
+        private Subscriber(Long userId, boolean seesAll, int accountVersion, Date openedAt, SseEmitter emitter) {
+            this.userId = userId;
+            this.seesAll = seesAll;
+            this.accountVersion = accountVersion;
+            this.openedAt = openedAt;
+            this.emitter = emitter;
+        }
+        
+        private void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed.get()) {
+                return;
+            }
+            // Role and access were fixed when the stream opened; a changed account must not keep them
+            if (!accountVersions.isCurrent(userId, accountVersion, openedAt)) {
+                log.debug("Account of user {} changed, closing their event stream", userId);
+                close();
+                return;
+            }
+            if (queued.incrementAndGet() > properties.getQueueCapacity()) {
+                log.debug("Event stream of user {} fell {} events behind, disconnecting", userId, properties.getQueueCapacity());
+                close();
+                return;
+            }
+            queue.add(frame);
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+        
+        private void drain() {
+            try {
+                while (true) {
+                    Set<ResponseBodyEmitter.DataWithMediaType> frame;
+                    while ((frame = queue.poll()) != null) {
+                        queued.decrementAndGet();
+                        emitter.send(frame);
+                    }
+                    draining.set(false);
+                    // A frame queued after the last poll but before the flag was cleared is still ours
+                    if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the stream already completed
+                close();
+            }
+        }
+        
+        // Completing waits for a write in progress, so it is left to the sender pool rather than the publisher
+        private void close() {
+            unsubscribe(this);
+            queue.clear();
+            try {
+                sender.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.EventBusProperties;
+import com.ticketflow.dto.EventBusStatsResponse;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process bus for ticket lifecycle events. Events raised inside a transaction are published
+ * when it commits, in the order they were raised, and dropped if it rolls back. Publishing claims
+ * a sequence number with one atomic increment and writes the event into its slot of a fixed ring
+ * buffer; there are no locks on the publishing path (except with the BLOCKING wait strategy, which
+ * has to wake consumers). Every {@link TicketEventConsumer} reads the whole ring in sequence order
+ * on its own thread and tracks its position, so a slow consumer only delays itself until it falls
+ * a full ring behind; publishers then wait for it rather than overwrite events it has not seen.
+ * The sequence number doubles as the event id.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketEventBus {
+    
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    
+    private final EventBusProperties properties;
+    private final List<TicketEventConsumer> consumers;
+    
+    private TicketEvent[] entries;
+    // Sequence last written to each slot; a consumer may read a slot once it holds the sequence it expects
+    private AtomicLongArray published;
+    private int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    // Lower bound of the slowest consumer's position, so publishers rarely have to look at every consumer
+    private volatile long gatingSequence = -1;
+    private Worker[] workers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition eventPublished = lock.newCondition();
+    private volatile boolean running = true;
+    
+    @PostConstruct
+    void start() {
+        int size = Integer.highestOneBit(Math.max(properties.getCapacity(), 2) * 2 - 1);
+        entries = new TicketEvent[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        mask = size - 1;
+        
+        workers = consumers.stream().map(Worker::new).toArray(Worker[]::new);
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+        log.info("Ticket event bus started: {} slots, {} wait strategy, consumers {}", size, properties.getWaitStrategy(),
+                consumers.stream().map(TicketEventConsumer::getName).collect(Collectors.toList()));
+    }
+    
+    // Consumers finish what has been published and stop
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        signalConsumers();
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    public void publish(TicketEvent.Type type, Ticket ticket) {
+        publish(toEvent(type, ticket));
+    }
+    
+    // Publishes once the surrounding transaction commits, or right away outside of one
+    public void publish(TicketEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishNow(List.of(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<TicketEvent> pending = (List<TicketEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<TicketEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(events);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TicketEventBus.this);
+                }
+            });
+            pending = events;
+        }
+        pending.add(event);
+    }
+    
+    // The ticket's current state; callers add the previous values of what they changed
+    public TicketEvent toEvent(TicketEvent.Type type, Ticket ticket) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return TicketEvent.builder()
+                .type(type)
+                .ticketId(ticket.getId())
+                .createdById(ticket.getCreatedBy().getId())
+                .status(ticket.getStatus())
+                .priority(ticket.getPriority())
+                .assignedToId(ticket.getAssignedTo() != null ? ticket.getAssignedTo().getId() : null)
+                .actorId(authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null)
+                .build();
+    }
+    
+    public EventBusStatsResponse getStats() {
+        long last = nextSequence.get() - 1;
+        return EventBusStatsResponse.builder()
+                .capacity(entries.length)
+                .waitStrategy(properties.getWaitStrategy())
+                .published(last + 1)
+                .consumers(Arrays.stream(workers)
+                        .map(worker -> {
+                            long position = worker.sequence.get();
+                            return new EventBusStatsResponse.ConsumerStats(
+                                    worker.consumer.getName(), position + 1, Math.max(last - position, 0), worker.errors.get());
+                        })
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private void publishNow(List<TicketEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        // One contiguous range, so a transaction's events are never interleaved with another's
+        long first = nextSequence.getAndAdd(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            long sequence = first + i;
+            if (!awaitFreeSlot(sequence)) {
+                log.error("Ticket event bus stopped, dropping event {}", sequence + 1);
+                continue;
+            }
+            TicketEvent event = events.get(i);
+            event.setId(sequence + 1);
+            event.setOccurredAt(now);
+            int index = (int) sequence & mask;
+            entries[index] = event;
+            published.set(index, sequence);
+        }
+        if (properties.getWaitStrategy() == EventBusProperties.WaitStrategy.BLOCKING) {
+            signalConsumers();
+        }
+    }
+    
+    // Waits until every consumer is done with the event that last used this sequence's slot
+    private boolean awaitFreeSlot(long sequence) {
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint <= gatingSequence) {
+            return true;
+        }
+        long slowest;
+        while ((slowest = slowestConsumer()) < wrapPoint) {
+            if (!running) {
+                return false;
+            }
+            LockSupport.parkNanos(SLEEP_NANOS);
+        }
+        gatingSequence = slowest;
+        return true;
+    }
+    
+    private long slowestConsumer() {
+        long slowest = Long.MAX_VALUE;
+        for (Worker worker : workers) {
+            slowest = Math.min(slowest, worker.sequence.get());
+        }
+        return slowest;
+    }
+    
+    private void signalConsumers() {
+        lock.lock();
+        try {
+            eventPublished.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+    
+    private final class Worker implements Runnable {
+        private final TicketEventConsumer consumer;
+        private final Thread thread;
+        // Last sequence this consumer is done with
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final AtomicLong errors = new AtomicLong();
+        
+        private Worker(TicketEventConsumer consumer) {
+            this.consumer = consumer;
+            this.thread = new Thread(this, "ticket-event-bus-" + consumer.getName());
+            this.thread.setDaemon(true);
+        }
+        
+        @Override
+        public void run() {
+            long next = 0;
+            while (true) {
+                if (!awaitPublished(next)) {
+                    return;
+                }
+                // Everything published in order from here on, up to a full ring
+                long available = next;
+                while (available - next < mask && isPublished(available + 1)) {
+                    available++;
+                }
+                for (; next <= available; next++) {
+                    try {
+                        consumer.onEvent(entries[(int) next & mask]);
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                        log.error("Ticket event consumer {} failed on event {}", consumer.getName(), next + 1, e);
+                    }
+                    sequence.lazySet(next);
+                }
+            }
+        }
+        
+        // False once the bus is stopping and everything published has been consumed
+        private boolean awaitPublished(long next) {
+            int idle = 0;
+            while (!isPublished(next)) {
+                if (!running || thread.isInterrupted()) {
+                    return false;
+                }
+                switch (properties.getWaitStrategy()) {
+                    case BLOCKING -> awaitSignal(next);
+                    case BUSY_SPIN -> Thread.onSpinWait();
+                    case YIELDING -> {
+                        if (idle++ < SPIN_TRIES) {
+                            Thread.onSpinWait();
+                        } else {
+                            Thread.yield();
+                            idle = SPIN_TRIES;
+                        }
+                    }
+                    case SLEEPING -> {
+                        if (idle < SPIN_TRIES) {
+                            Thread.onSpinWait();
+                        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                            Thread.yield();
+                        } else {
+                            LockSupport.parkNanos(SLEEP_NANOS);
+                            continue;
+                        }
+                        idle++;
+                    }
+                }
+            }
+            return true;
+        }
+        
+        private void awaitSignal(long next) {
+            lock.lock();
+            try {
+                // Publishers signal under the lock after publishing, so the check cannot miss a wake-up
+                if (!isPublished(next) && running) {
+                    eventPublished.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
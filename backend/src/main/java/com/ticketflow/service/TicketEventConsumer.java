@@ -0,0 +1,15 @@
+package com.ticketflow.service;
+
+import com.ticketflow.dto.TicketEvent;
+
+/**
+ * Receives every ticket lifecycle event published on the {@link TicketEventBus}, in publication
+ * order, on a thread of its own. Events are shared between consumers and must not be modified.
+ */
+public interface TicketEventConsumer {
+    
+    // Identifies the consumer in thread names and lag metrics
+    String getName();
+    
+    void onEvent(TicketEvent event);
+}
@@ -0,0 +1,188 @@
+package com.ticketflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketflow.dto.TicketExportRecord;
+import com.ticketflow.model.Comment;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.repository.CommentRepository;
+import com.ticketflow.repository.TicketRepository;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams tickets with their comments and rating to an output stream.
+ * Ticket ids come from a server-side cursor and are processed in fixed-size chunks
+ * (one ticket query and one comment query per chunk), and the persistence context
+ * is cleared after every chunk, so memory use does not grow with the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketExportService {
+    
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+    
+    private static final String[] CSV_HEADER = {
+            "id", "subject", "description", "status", "priority", "created_by", "assigned_to",
+            "created_at", "updated_at", "resolved_at", "closed_at", "rating_stars", "rating_feedback", "comments"
+    };
+    
+    private final TicketRepository ticketRepository;
+    private final CommentRepository commentRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${ticket.export.chunk-size:500}")
+    private int chunkSize;
+    
+    @Transactional(readOnly = true)
+    public void exportTickets(Format format, String keyword, TicketStatus status, Priority priority,
+                              OutputStream outputStream) throws IOException {
+        // A full export would otherwise push every ticket through the second-level cache
+        entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        
+        if (format == Format.CSV) {
+            writeCsvRow(writer, CSV_HEADER);
+        }
+        
+        long exported = 0;
+        try (Stream<Long> ids = ticketRepository.streamIdsForExport(
+                keyword != null && !keyword.isBlank() ? keyword : null,
+                status != null ? status.name() : null,
+                priority != null ? priority.name() : null
+        )) {
+            Iterator<Long> iterator = ids.iterator();
+            List<Long> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    for (TicketExportRecord record : loadChunk(chunk)) {
+                        writeRecord(writer, format, record);
+                    }
+                    exported += chunk.size();
+                    chunk.clear();
+                    writer.flush();
+                    // Detach the chunk so the persistence context stays bounded
+                    entityManager.clear();
+                }
+            }
+        }
+        
+        writer.flush();
+        log.info("Exported {} tickets as {}", exported, format);
+    }
+    
+    private List<TicketExportRecord> loadChunk(List<Long> ids) {
+        List<Ticket> tickets = ticketRepository.findByIdInOrderByIdAsc(ids);
+        Map<Long, List<Comment>> commentsByTicket = commentRepository.findByTicketIdInOrderByCreatedAtAsc(ids).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getTicket().getId()));
+        
+        return tickets.stream()
+                .map(ticket -> mapToExportRecord(ticket, commentsByTicket.getOrDefault(ticket.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+    
+    private void writeRecord(Writer writer, Format format, TicketExportRecord record) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(record));
+            writer.write('\n');
+            return;
+        }
+        
+        String comments = record.getComments().stream()
+                .map(comment -> "[" + comment.getCreatedAt() + "] " + comment.getAuthor() + ": " + comment.getContent())
+                .collect(Collectors.joining("\n"));
+        
+        writeCsvRow(writer, new String[]{
+                String.valueOf(record.getId()),
+                record.getSubject(),
+                record.getDescription(),
+                String.valueOf(record.getStatus()),
+                String.valueOf(record.getPriority()),
+                record.getCreatedBy(),
+                record.getAssignedTo(),
+                toString(record.getCreatedAt()),
+                toString(record.getUpdatedAt()),
+                toString(record.getResolvedAt()),
+                toString(record.getClosedAt()),
+                record.getRatingStars() != null ? String.valueOf(record.getRatingStars()) : null,
+                record.getRatingFeedback(),
+                comments
+        });
+    }
+    
+    // RFC 4180: quote fields containing separators, quotes or line breaks and double embedded quotes
+    private void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    private String toString(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toString() : null;
+    }
+    
+    private TicketExportRecord mapToExportRecord(Ticket ticket, List<Comment> comments) {
+        return TicketExportRecord.builder()
+                .id(ticket.getId())
+                .subject(ticket.getSubject())
+                .description(ticket.getDescription())
+                .status(ticket.getStatus())
+                .priority(ticket.getPriority())
+                .createdBy(ticket.getCreatedBy().getUsername())
+                .assignedTo(ticket.getAssignedTo() != null ? ticket.getAssignedTo().getUsername() : null)
+                .createdAt(ticket.getCreatedAt())
+                .updatedAt(ticket.getUpdatedAt())
+                .resolvedAt(ticket.getResolvedAt())
+                .closedAt(ticket.getClosedAt())
+                .ratingStars(ticket.getRating() != null ? ticket.getRating().getStars() : null)
+                .ratingFeedback(ticket.getRating() != null ? ticket.getRating().getFeedback() : null)
+                .comments(comments.stream()
+                        .map(comment -> new TicketExportRecord.ExportedComment(
+                                comment.getUser().getUsername(),
+                                comment.getCreatedAt(),
+                                comment.getContent()
+                        ))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,375 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.HistoryLogProperties;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.dto.TicketHistoryEntry;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of ticket changes, fed by the {@link TicketEventBus} so recording it costs
+ * the ticket transactions nothing. Every event becomes a fixed-size binary record appended to a
+ * memory-mapped segment file; a full segment is followed by a new one, named after the position
+ * of its first record. Each record points back at the previous record of the same ticket, so the
+ * only index is the position of every ticket's newest record (rebuilt by scanning the segments on
+ * startup) and reading a ticket's history visits just that ticket's records.
+ * The bus consumer thread is the only writer. It keeps record times from going backwards: an event
+ * stamped before the previous record (the time is taken before the bus numbers the event, and the
+ * clock can step back) is recorded at the previous record's time. Records are in the page cache as
+ * soon as they are written, so they survive a crash of the application; they are forced to disk
+ * periodically.
+ * The log is local to this instance. Records are identified by their position in it: the bus
+ * sequence they also carry restarts with the application. Without a retention the segments and the
+ * index of newest records grow with every ticket ever changed; with one, {@link TicketHistoryReplay}
+ * retires the segments behind a snapshot older than the retention.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketHistoryLog implements TicketEventConsumer {
+    
+    private static final int RECORD_SIZE = 64;
+    
+    // Record layout; enums are stored by ordinal (-1 for null), so new constants go at the end
+    private static final int BUS_SEQUENCE = 0; // not unique, the bus numbers events from 1 on every start
+    private static final int TICKET_ID = 8;
+    private static final int OCCURRED_AT = 16; // epoch millis of the local time read as UTC
+    private static final int PREVIOUS_RECORD = 24; // position of the ticket's previous record, or -1
+    private static final int ACTOR_ID = 32;
+    private static final int ASSIGNED_TO_ID = 40;
+    private static final int PREVIOUS_ASSIGNEE_ID = 48;
+    private static final int TYPE = 56;
+    private static final int STATUS = 57;
+    private static final int PREVIOUS_STATUS = 58;
+    private static final int PRIORITY = 59;
+    private static final int STARS = 60;
+    private static final int COMMITTED = 63; // written last; 0 marks the end of the log
+    
+    private static final Pattern SEGMENT_NAME = Pattern.compile("history-(\\d{20})\\.log");
+    private static final TicketEvent.Type[] TYPES = TicketEvent.Type.values();
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    
+    private final HistoryLogProperties properties;
+    
+    // Segments by the position of their first record
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Position of each ticket's newest record
+    private final Map<Long, Long> newestRecord = new ConcurrentHashMap<>();
+    private Path dir;
+    // Position of the oldest record still kept; the segments before it have been retired
+    private volatile long firstPosition;
+    // Written by the bus consumer thread only
+    private volatile Segment current;
+    private volatile long nextPosition;
+    private long lastOccurredAt = Long.MIN_VALUE;
+    
+    @PostConstruct
+    void open() throws IOException {
+        dir = Path.of(properties.getDir());
+        Files.createDirectories(dir);
+        
+        List<Long> firstPositions = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    firstPositions.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        Collections.sort(firstPositions);
+        firstPosition = firstPositions.isEmpty() ? 0 : firstPositions.get(0);
+        
+        for (long first : firstPositions) {
+            Segment segment = map(segmentFile(first), first, 0);
+            segments.put(first, segment);
+            current = segment;
+            nextPosition = first;
+            for (long position = first; position < segment.end() && segment.isCommitted(position); position++) {
+                newestRecord.put(segment.buffer.getLong(segment.offset(position) + TICKET_ID), position);
+                lastOccurredAt = segment.buffer.getLong(segment.offset(position) + OCCURRED_AT);
+                nextPosition = position + 1;
+            }
+        }
+        log.info("Ticket history log opened in {}: {} records of {} tickets", dir.toAbsolutePath(), nextPosition, newestRecord.size());
+    }
+    
+    @Override
+    public String getName() {
+        return "history";
+    }
+    
+    @Override
+    public void onEvent(TicketEvent event) {
+        long position = nextPosition;
+        Segment segment = current;
+        if (segment == null || position >= segment.end()) {
+            segment = roll(position);
+        }
+        Long previous = newestRecord.get(event.getTicketId());
+        lastOccurredAt = Math.max(lastOccurredAt, event.getOccurredAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.offset(position);
+        buffer.putLong(offset + BUS_SEQUENCE, event.getId());
+        buffer.putLong(offset + TICKET_ID, event.getTicketId());
+        buffer.putLong(offset + OCCURRED_AT, lastOccurredAt);
+        buffer.putLong(offset + PREVIOUS_RECORD, previous != null ? previous : -1);
+        buffer.putLong(offset + ACTOR_ID, orNone(event.getActorId()));
+        buffer.putLong(offset + ASSIGNED_TO_ID, orNone(event.getAssignedToId()));
+        buffer.putLong(offset + PREVIOUS_ASSIGNEE_ID, orNone(event.getPreviousAssigneeId()));
+        buffer.put(offset + TYPE, ordinal(event.getType()));
+        buffer.put(offset + STATUS, ordinal(event.getStatus()));
+        buffer.put(offset + PREVIOUS_STATUS, ordinal(event.getPreviousStatus()));
+        buffer.put(offset + PRIORITY, ordinal(event.getPriority()));
+        buffer.put(offset + STARS, event.getStars() != null ? event.getStars().byteValue() : -1);
+        buffer.put(offset + COMMITTED, (byte) 1);
+        
+        // Readers find the record through this map, which publishes the writes above to them
+        newestRecord.put(event.getTicketId(), position);
+        nextPosition = position + 1;
+    }
+    
+    // The ticket's recorded changes, oldest first
+    public List<TicketHistoryEntry> read(Long ticketId) {
+        List<TicketHistoryEntry> entries = new ArrayList<>();
+        Long position = newestRecord.get(ticketId);
+        long next = position != null ? position : -1;
+        // Stops where the ticket's older records have been retired
+        while (next >= firstPosition) {
+            Map.Entry<Long, Segment> segment = segments.floorEntry(next);
+            if (segment == null) {
+                break;
+            }
+            int offset = segment.getValue().offset(next);
+            entries.add(readEntry(segment.getValue().buffer, next, offset));
+            next = segment.getValue().buffer.getLong(offset + PREVIOUS_RECORD);
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+    
+    // Number of records in the log; positions below it can be read
+    public long size() {
+        return nextPosition;
+    }
+    
+    // Position of the oldest record still kept
+    public long firstPosition() {
+        return firstPosition;
+    }
+    
+    // Deletes the segments whose records all lie before the given position, except the one being written.
+    // Readers still walking a retired segment keep its mapping, which is released once they drop it.
+    public synchronized void retireBefore(long position) {
+        List<Segment> retired = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment == current || segment.end() > position) {
+                break;
+            }
+            retired.add(segment);
+        }
+        if (retired.isEmpty()) {
+            return;
+        }
+        // Raised first, so readers stop before reaching a segment that is about to go
+        firstPosition = retired.get(retired.size() - 1).end();
+        for (Segment segment : retired) {
+            segments.remove(segment.first());
+            try {
+                Files.deleteIfExists(segmentFile(segment.first()));
+            } catch (IOException e) {
+                log.warn("Could not delete ticket history segment {}", segmentFile(segment.first()).getFileName(), e);
+            }
+        }
+        // Tickets with no record left are forgotten
+        newestRecord.values().removeIf(newest -> newest < firstPosition);
+        log.info("Retired {} ticket history segments, records before {} are no longer kept", retired.size(), firstPosition);
+    }
+    
+    // Reads the log in order from the given position, without building entries (see TicketHistoryReplay)
+    Cursor cursor(long from) {
+        return new Cursor(from);
+    }
+    
+    @Scheduled(
+            initialDelayString = "${ticket.history.flush-interval-ms:1000}",
+            fixedDelayString = "${ticket.history.flush-interval-ms:1000}"
+    )
+    @PreDestroy
+    public void flush() {
+        Segment segment = current;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+    
+    private Segment roll(long position) {
+        if (current != null) {
+            current.buffer.force();
+        }
+        try {
+            // A mapping is limited to 2 GB
+            long records = Math.max(Math.min(properties.getSegmentSize().toBytes(), Integer.MAX_VALUE) / RECORD_SIZE, 1);
+            Segment segment = map(segmentFile(position), position, records * RECORD_SIZE);
+            segments.put(position, segment);
+            current = segment;
+            log.debug("Started ticket history segment {}", segmentFile(position).getFileName());
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create ticket history segment", e);
+        }
+    }
+    
+    // Maps the whole file, first growing it to size when it is smaller
+    private Segment map(Path file, long first, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long length = Math.max(channel.size(), size);
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            return new Segment(first, length / RECORD_SIZE, buffer);
+        }
+    }
+    
+    private Path segmentFile(long first) {
+        return dir.resolve(String.format("history-%020d.log", first));
+    }
+    
+    private TicketHistoryEntry readEntry(MappedByteBuffer buffer, long position, int offset) {
+        byte stars = buffer.get(offset + STARS);
+        return TicketHistoryEntry.builder()
+                .eventId(position)
+                .type(TYPES[buffer.get(offset + TYPE)])
+                .occurredAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset + OCCURRED_AT)), ZoneOffset.UTC))
+                .actorId(idOrNull(buffer.getLong(offset + ACTOR_ID)))
+                .status(valueOrNull(STATUSES, buffer.get(offset + STATUS)))
+                .priority(valueOrNull(PRIORITIES, buffer.get(offset + PRIORITY)))
+                .assignedToId(idOrNull(buffer.getLong(offset + ASSIGNED_TO_ID)))
+                .previousStatus(valueOrNull(STATUSES, buffer.get(offset + PREVIOUS_STATUS)))
+                .previousAssigneeId(idOrNull(buffer.getLong(offset + PREVIOUS_ASSIGNEE_ID)))
+                .stars(stars >= 0 ? (int) stars : null)
+                .build();
+    }
+    
+    private static long orNone(Long id) {
+        return id != null ? id : -1;
+    }
+    
+    private static Long idOrNull(long id) {
+        return id >= 0 ? id : null;
+    }
+    
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : -1;
+    }
+    
+    private static <E> E valueOrNull(E[] values, byte ordinal) {
+        return ordinal >= 0 ? values[ordinal] : null;
+    }
+    
+    // Positioned on a record after next() returned true; the getters read that record in place
+    final class Cursor {
+        private long position;
+        private Segment segment;
+        private int offset;
+        
+        private Cursor(long from) {
+            this.position = from - 1;
+        }
+        
+        boolean next() {
+            if (position + 1 >= nextPosition) {
+                return false;
+            }
+            position++;
+            if (segment == null || position >= segment.end()) {
+                Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+                if (entry == null || position < firstPosition) {
+                    throw new RuntimeException("Ticket history that old is no longer kept");
+                }
+                segment = entry.getValue();
+            }
+            offset = segment.offset(position);
+            return true;
+        }
+        
+        long position() {
+            return position;
+        }
+        
+        long ticketId() {
+            return segment.buffer.getLong(offset + TICKET_ID);
+        }
+        
+        // Same encoding as the records: epoch millis of the local time read as UTC
+        long occurredAt() {
+            return segment.buffer.getLong(offset + OCCURRED_AT);
+        }
+        
+        TicketEvent.Type type() {
+            return TYPES[segment.buffer.get(offset + TYPE)];
+        }
+        
+        TicketStatus status() {
+            return valueOrNull(STATUSES, segment.buffer.get(offset + STATUS));
+        }
+        
+        Priority priority() {
+            return valueOrNull(PRIORITIES, segment.buffer.get(offset + PRIORITY));
+        }
+        
+        // -1 when unassigned
+        long assignedToId() {
+            return segment.buffer.getLong(offset + ASSIGNED_TO_ID);
+        }
+        
+        // -1 when not a rating
+        int stars() {
+            return segment.buffer.get(offset + STARS);
+        }
+    }
+    
+    private record Segment(long first, long records, MappedByteBuffer buffer) {
+        
+        long end() {
+            return first + records;
+        }
+        
+        int offset(long position) {
+            return (int) ((position - first) * RECORD_SIZE);
+        }
+        
+        boolean isCommitted(long position) {
+            return buffer.get(offset(position) + COMMITTED) == 1;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.HistoryLogProperties;
+import com.ticketflow.dto.StatusCountsResponse;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.dto.TicketStateResponse;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.repository.TicketRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time ticket state rebuilt from the {@link TicketHistoryLog}: status, priority and
+ * assignee as changed by status updates and assignments, the resolve and close times, and the
+ * rating. Every snapshot-interval records the state of all tickets is saved as a snapshot file next
+ * to the log, holding the position it covers and entries sorted by ticket id. A query for time T
+ * starts from the newest snapshot taken at or before T (one binary search for a single ticket) and
+ * replays the records after it up to T, so its cost is bounded by the snapshot interval rather
+ * than by the length of the history. Records are in commit order and their times never go back.
+ * The first snapshot is taken from the database when the replay starts without one, so tickets
+ * created before the log existed are counted from then on; earlier times only know the log.
+ * With a retention, the snapshots and log segments before the newest snapshot older than it are
+ * deleted, and earlier times can no longer be queried.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketHistoryReplay {
+    
+    private static final int MAGIC = 0x54485331; // "THS1"
+    private static final int HEADER_SIZE = 24; // magic, entry count, position covered, time of its last record
+    private static final int ENTRY_SIZE = 64;
+    private static final long NONE = -1;
+    
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    
+    private final TicketHistoryLog historyLog;
+    private final HistoryLogProperties properties;
+    private final TicketRepository ticketRepository;
+    
+    // Snapshots by the number of records they cover
+    private final NavigableMap<Long, Snapshot> snapshots = new ConcurrentSkipListMap<>();
+    // State of all tickets as of the newest snapshot, kept to build the next one; loaded on first use
+    private Map<Long, State> newestState;
+    
+    @PostConstruct
+    void open() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(properties.getDir()))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                Snapshot snapshot = Snapshot.map(file);
+                if (snapshot == null || snapshot.position() > historyLog.size()) {
+                    log.warn("Ignoring ticket history snapshot {} that does not match the log", file.getFileName());
+                    continue;
+                }
+                snapshots.put(snapshot.position(), snapshot);
+            }
+        }
+        log.info("Ticket history snapshots loaded: {}", snapshots.size());
+    }
+    
+    // Starts the history from the tickets as they are now, unless a snapshot already does
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void seed() {
+        if (!snapshots.isEmpty()) {
+            return;
+        }
+        // Read first: changes the query already sees may be replayed again from here, setting the same values
+        long position = historyLog.size();
+        long time = toMillis(LocalDateTime.now());
+        Map<Long, State> states = new HashMap<>();
+        try (Stream<Object[]> rows = ticketRepository.streamHistoryStates()) {
+            rows.forEach(row -> {
+                State state = State.fromRow(row);
+                states.put(state.ticketId, state);
+            });
+        }
+        try {
+            Snapshot snapshot = write(position, time, states);
+            snapshots.put(snapshot.position(), snapshot);
+            newestState = states;
+            log.info("Ticket history seeded at record {} with {} tickets from the database", position, states.size());
+        } catch (IOException e) {
+            log.error("Could not write the first ticket history snapshot", e);
+        }
+    }
+    
+    // Saves a snapshot once snapshot-interval records have been appended since the last one, then
+    // applies the retention
+    @Scheduled(
+            initialDelayString = "${ticket.history.snapshot-check-interval-ms:60000}",
+            fixedDelayString = "${ticket.history.snapshot-check-interval-ms:60000}"
+    )
+    public synchronized void snapshot() {
+        takeSnapshot();
+        retire();
+    }
+    
+    private void takeSnapshot() {
+        Map.Entry<Long, Snapshot> newest = snapshots.lastEntry();
+        long from = newest != null ? newest.getKey() : 0;
+        if (historyLog.size() - from < properties.getSnapshotInterval()) {
+            return;
+        }
+        if (newestState == null) {
+            newestState = newest != null ? newest.getValue().loadAll() : new HashMap<>();
+        }
+        
+        Replay replay = new Replay(newestState, from, NONE);
+        replay.advanceTo(Long.MAX_VALUE);
+        try {
+            Snapshot snapshot = write(replay.position, replay.lastTime, newestState);
+            snapshots.put(snapshot.position(), snapshot);
+            log.info("Ticket history snapshot at record {}: {} tickets", snapshot.position(), newestState.size());
+        } catch (IOException e) {
+            // The next run starts over from the previous snapshot
+            newestState = null;
+            log.error("Could not write ticket history snapshot", e);
+        }
+    }
+    
+    // Keeps the newest snapshot older than the retention as the start of the history; what lies before it goes
+    private void retire() {
+        Duration retention = properties.getRetention();
+        if (retention == null || retention.isZero()) {
+            return;
+        }
+        Snapshot base = snapshotAt(toMillis(LocalDateTime.now().minus(retention)));
+        if (base == null) {
+            return;
+        }
+        for (Snapshot older : new ArrayList<>(snapshots.headMap(base.position()).values())) {
+            snapshots.remove(older.position());
+            try {
+                Files.deleteIfExists(snapshotFile(older.position()));
+            } catch (IOException e) {
+                log.warn("Could not delete ticket history snapshot {}", snapshotFile(older.position()).getFileName(), e);
+            }
+        }
+        historyLog.retireBefore(base.position());
+    }
+    
+    // The ticket as it was at the given time; fails if nothing had been recorded for it by then
+    public TicketStateResponse getTicketState(Long ticketId, LocalDateTime at) {
+        long atMillis = toMillis(at);
+        Snapshot base = snapshotAt(atMillis);
+        Map<Long, State> states = new HashMap<>();
+        if (base != null) {
+            State state = base.find(ticketId);
+            if (state != null) {
+                states.put(ticketId, state);
+            }
+        }
+        
+        new Replay(states, startOf(base), ticketId).advanceTo(atMillis);
+        State state = states.get(ticketId);
+        if (state == null) {
+            throw new RuntimeException("No recorded state for this ticket at that time");
+        }
+        return state.toResponse(at);
+    }
+    
+    // Tickets per status at each of the given times, which must be in ascending order
+    public List<StatusCountsResponse> getStatusCounts(List<LocalDateTime> times) {
+        List<StatusCountsResponse> result = new ArrayList<>();
+        if (times.isEmpty()) {
+            return result;
+        }
+        Snapshot base = snapshotAt(toMillis(times.get(0)));
+        Replay replay = new Replay(base != null ? base.loadAll() : new HashMap<>(), startOf(base), NONE);
+        replay.countStatuses();
+        for (LocalDateTime at : times) {
+            replay.advanceTo(toMillis(at));
+            Map<TicketStatus, Long> byStatus = new EnumMap<>(TicketStatus.class);
+            for (TicketStatus status : STATUSES) {
+                byStatus.put(status, replay.statusCounts[status.ordinal()]);
+            }
+            result.add(new StatusCountsResponse(at, byStatus));
+        }
+        return result;
+    }
+    
+    // Newest snapshot whose records all happened at or before the given time
+    private Snapshot snapshotAt(long atMillis) {
+        for (Snapshot snapshot : snapshots.descendingMap().values()) {
+            if (snapshot.lastTime() <= atMillis) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+    
+    // Where a replay from the snapshot starts; without one, the log must still hold its first record
+    private long startOf(Snapshot base) {
+        if (base != null) {
+            return base.position();
+        }
+        if (historyLog.firstPosition() > 0) {
+            throw new RuntimeException("Ticket history that old is no longer kept");
+        }
+        return 0;
+    }
+    
+    private Snapshot write(long position, long lastTime, Map<Long, State> states) throws IOException {
+        Path file = snapshotFile(position);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(states.size());
+            out.writeLong(position);
+            out.writeLong(lastTime);
+            List<State> sorted = new ArrayList<>(states.values());
+            sorted.sort(Comparator.comparingLong(state -> state.ticketId));
+            for (State state : sorted) {
+                state.write(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Snapshot.map(file);
+    }
+    
+    private Path snapshotFile(long position) {
+        return Path.of(properties.getDir()).resolve(String.format("snapshot-%020d.bin", position));
+    }
+    
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    private static long millisOrNone(LocalDateTime time) {
+        return time != null ? toMillis(time) : NONE;
+    }
+    
+    private static LocalDateTime toTime(long millis) {
+        return millis != NONE ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC) : null;
+    }
+    
+    // Applies log records to a set of ticket states, in order, from a position onwards
+    private final class Replay {
+        private final Map<Long, State> states;
+        private final long onlyTicket;
+        private long position;
+        private long lastTime = Long.MIN_VALUE;
+        private long[] statusCounts;
+        
+        private Replay(Map<Long, State> states, long position, long onlyTicket) {
+            this.states = states;
+            this.position = position;
+            this.onlyTicket = onlyTicket;
+        }
+        
+        private void countStatuses() {
+            statusCounts = new long[STATUSES.length];
+            states.values().forEach(state -> count(state.status, 1));
+        }
+        
+        // Applies the records that happened at or before the given time
+        private void advanceTo(long atMillis) {
+            TicketHistoryLog.Cursor cursor = historyLog.cursor(position);
+            while (cursor.next()) {
+                if (cursor.occurredAt() > atMillis) {
+                    return;
+                }
+                position = cursor.position() + 1;
+                lastTime = cursor.occurredAt();
+                if (onlyTicket == NONE || cursor.ticketId() == onlyTicket) {
+                    apply(cursor);
+                }
+            }
+        }
+        
+        private void apply(TicketHistoryLog.Cursor record) {
+            State state = states.computeIfAbsent(record.ticketId(), State::new);
+            TicketStatus previous = state.status;
+            long time = record.occurredAt();
+            
+            // Every record carries the ticket's status, priority and assignee after the change
+            state.status = record.status();
+            state.priority = record.priority();
+            state.assignedToId = record.assignedToId();
+            state.lastEventId = record.position();
+            state.lastChangedAt = time;
+            switch (record.type()) {
+                case CREATED -> state.createdAt = time;
+                case STATUS_CHANGED -> {
+                    // As TicketService does: the latest transition into each state wins
+                    if (state.status == TicketStatus.RESOLVED) {
+                        state.resolvedAt = time;
+                    } else if (state.status == TicketStatus.CLOSED) {
+                        state.closedAt = time;
+                    }
+                }
+                case RATED -> state.stars = record.stars();
+                default -> {
+                }
+            }
+            
+            if (statusCounts != null && previous != state.status) {
+                count(previous, -1);
+                count(state.status, 1);
+            }
+        }
+        
+        private void count(TicketStatus status, int delta) {
+            if (status != null) {
+                statusCounts[status.ordinal()] += delta;
+            }
+        }
+    }
+    
+    private static final class State {
+        private final long ticketId;
+        private TicketStatus status;
+        private Priority priority;
+        private long assignedToId = NONE;
+        private int stars = -1;
+        private long createdAt = NONE;
+        private long resolvedAt = NONE;
+        private long closedAt = NONE;
+        private long lastEventId;
+        private long lastChangedAt;
+        
+        private State(long ticketId) {
+            this.ticketId = ticketId;
+        }
+        
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(ticketId);
+            out.writeLong(assignedToId);
+            out.writeLong(createdAt);
+            out.writeLong(resolvedAt);
+            out.writeLong(closedAt);
+            out.writeLong(lastEventId);
+            out.writeLong(lastChangedAt);
+            out.writeByte(status != null ? status.ordinal() : -1);
+            out.writeByte(priority != null ? priority.ordinal() : -1);
+            out.writeByte(stars);
+            out.writeByte(0);
+            out.writeInt(0);
+        }
+        
+        // Columns of TicketRepository.streamHistoryStates
+        private static State fromRow(Object[] row) {
+            State state = new State((Long) row[0]);
+            state.status = (TicketStatus) row[1];
+            state.priority = (Priority) row[2];
+            state.assignedToId = row[3] != null ? (Long) row[3] : NONE;
+            state.stars = row[4] != null ? (Integer) row[4] : -1;
+            state.createdAt = millisOrNone((LocalDateTime) row[5]);
+            state.resolvedAt = millisOrNone((LocalDateTime) row[6]);
+            state.closedAt = millisOrNone((LocalDateTime) row[7]);
+            state.lastEventId = NONE;
+            state.lastChangedAt = millisOrNone((LocalDateTime) row[8]);
+            return state;
+        }
+        
+        private static State read(MappedByteBuffer buffer, int offset) {
+            State state = new State(buffer.getLong(offset));
+            state.assignedToId = buffer.getLong(offset + 8);
+            state.createdAt = buffer.getLong(offset + 16);
+            state.resolvedAt = buffer.getLong(offset + 24);
+            state.closedAt = buffer.getLong(offset + 32);
+            state.lastEventId = buffer.getLong(offset + 40);
+            state.lastChangedAt = buffer.getLong(offset + 48);
+            byte status = buffer.get(offset + 56);
+            byte priority = buffer.get(offset + 57);
+            state.status = status >= 0 ? STATUSES[status] : null;
+            state.priority = priority >= 0 ? PRIORITIES[priority] : null;
+            state.stars = buffer.get(offset + 58);
+            return state;
+        }
+        
+        private TicketStateResponse toResponse(LocalDateTime asOf) {
+            return TicketStateResponse.builder()
+                    .ticketId(ticketId)
+                    .asOf(asOf)
+                    .status(status)
+                    .priority(priority)
+                    .assignedToId(assignedToId != NONE ? assignedToId : null)
+                    .stars(stars >= 0 ? stars : null)
+                    .createdAt(toTime(createdAt))
+                    .resolvedAt(toTime(resolvedAt))
+                    .closedAt(toTime(closedAt))
+                    .lastEventId(lastEventId)
+                    .lastChangedAt(toTime(lastChangedAt))
+                    .build();
+        }
+    }
+    
+    private record Snapshot(long position, long lastTime, int count, MappedByteBuffer buffer) {
+        
+        // Null when the file is not a complete snapshot
+        static Snapshot map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) {
+                    return null;
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int count = buffer.getInt(4);
+                if (buffer.getInt(0) != MAGIC || channel.size() != HEADER_SIZE + (long) count * ENTRY_SIZE) {
+                    return null;
+                }
+                return new Snapshot(buffer.getLong(8), buffer.getLong(16), count, buffer);
+            }
+        }
+        
+        // Binary search over the entries, which are sorted by ticket id
+        State find(long ticketId) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long id = buffer.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+                if (id < ticketId) {
+                    low = mid + 1;
+                } else if (id > ticketId) {
+                    high = mid - 1;
+                } else {
+                    return State.read(buffer, HEADER_SIZE + mid * ENTRY_SIZE);
+                }
+            }
+            return null;
+        }
+        
+        Map<Long, State> loadAll() {
+            Map<Long, State> states = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                State state = State.read(buffer, HEADER_SIZE + i * ENTRY_SIZE);
+                states.put(state.ticketId, state);
+            }
+            return states;
+        }
+    }
+}
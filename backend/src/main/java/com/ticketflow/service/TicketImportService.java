@@ -0,0 +1,323 @@
+package com.ticketflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketflow.dto.ImportJobResponse;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.dto.TicketImportRow;
+import com.ticketflow.model.Comment;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of legacy tickets from NDJSON, one {@link TicketImportRow} per line.
+ * Lines are parsed and validated in parallel, then each batch is written in its own
+ * transaction so Hibernate can group the inserts into JDBC batches. Imports bypass
+ * {@link TicketService}, so no notifications are sent, but every committed batch is published
+ * to the {@link TicketEventBus} as CREATED events, stamped with the import time, so the history
+ * log and live views know the tickets. Finished jobs can be polled for
+ * {@code ticket.import.job-retention} and are then forgotten.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketImportService {
+    
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final SubjectTermIndex subjectTermIndex;
+    private final TicketStatsService ticketStatsService;
+    private final SlaService slaService;
+    private final AgentLoadIndex agentLoadIndex;
+    private final TicketEventBus ticketEventBus;
+    
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private ForkJoinPool parsePool;
+    
+    @Value("${ticket.import.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${ticket.import.parse-parallelism:0}")
+    private int parseParallelism;
+    
+    @Value("${ticket.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    @Value("${ticket.import.job-retention:1h}")
+    private Duration jobRetention;
+    
+    @PostConstruct
+    void init() {
+        int parallelism = parseParallelism > 0 ? parseParallelism : Runtime.getRuntime().availableProcessors();
+        parsePool = new ForkJoinPool(parallelism);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        parsePool.shutdownNow();
+    }
+    
+    public ImportJobResponse startImport(MultipartFile file) throws IOException {
+        // The multipart temp file is gone once the request ends, so keep our own copy
+        Path source = Files.createTempFile("ticket-import-", ".ndjson");
+        file.transferTo(source);
+        
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        jobExecutor.submit(() -> runImport(job, source));
+        
+        return job.toResponse();
+    }
+    
+    public ImportJobResponse getImportJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found");
+        }
+        return job.toResponse();
+    }
+    
+    @Scheduled(
+            initialDelayString = "${ticket.import.job-eviction-interval-ms:60000}",
+            fixedDelayString = "${ticket.import.job-eviction-interval-ms:60000}"
+    )
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        // Running jobs have no finish time and are never evicted
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+    
+    private void runImport(ImportJob job, Path source) {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            Map<String, Long> userIds = userRepository.findAll().stream()
+                    .collect(Collectors.toMap(User::getUsername, User::getId));
+            
+            List<NumberedLine> batch = new ArrayList<>(batchSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(new NumberedLine(lineNumber, line));
+                if (batch.size() == batchSize) {
+                    importBatch(job, batch, userIds);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                importBatch(job, batch, userIds);
+            }
+            
+            // Imported tickets bypass the incremental statistics and agent loads; recount once per job
+            ticketStatsService.rebuild();
+            agentLoadIndex.rebuild();
+            job.finish("COMPLETED");
+            log.info("Ticket import {} completed: {} imported, {} failed", job.id, job.imported, job.failed);
+        } catch (Exception e) {
+            job.message = "Import aborted: " + e.getMessage();
+            job.finish("FAILED");
+            log.error("Ticket import {} failed", job.id, e);
+        } finally {
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", source, e);
+            }
+        }
+    }
+    
+    private void importBatch(ImportJob job, List<NumberedLine> batch, Map<String, Long> userIds)
+            throws InterruptedException, ExecutionException {
+        List<ParsedRow> parsed = parsePool.submit(() -> batch.parallelStream()
+                .map(line -> parse(line, userIds))
+                .collect(Collectors.toList())
+        ).get();
+        
+        List<ParsedRow> valid = new ArrayList<>(parsed.size());
+        for (ParsedRow row : parsed) {
+            if (row.error() != null) {
+                job.addError(row.line(), row.error());
+            } else {
+                valid.add(row);
+            }
+        }
+        
+        try {
+            List<Ticket> tickets = new ArrayList<>(valid.size());
+            transactionTemplate.executeWithoutResult(status -> {
+                // Imported tickets are cold; keep them out of the second-level cache
+                entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+                for (ParsedRow row : valid) {
+                    Ticket ticket = toTicket(row.row(), userIds);
+                    entityManager.persist(ticket);
+                    tickets.add(ticket);
+                    // Published as one range once the batch commits; a rolled back batch publishes nothing
+                    ticketEventBus.publish(TicketEvent.Type.CREATED, ticket);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            job.imported.addAndGet(valid.size());
+            valid.forEach(row -> subjectTermIndex.addSubject(row.row().getSubject()));
+            tickets.forEach(slaService::track);
+        } catch (Exception e) {
+            // The whole batch rolled back; report every row of it
+            for (ParsedRow row : valid) {
+                job.addError(row.line(), "Batch insert failed: " + e.getMessage());
+            }
+        }
+        job.processed.addAndGet(batch.size());
+    }
+    
+    private ParsedRow parse(NumberedLine line, Map<String, Long> userIds) {
+        TicketImportRow row;
+        try {
+            row = objectMapper.readValue(line.content(), TicketImportRow.class);
+        } catch (JsonProcessingException e) {
+            return new ParsedRow(line.number(), null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        
+        Set<ConstraintViolation<TicketImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return new ParsedRow(line.number(), null, message);
+        }
+        
+        if (!userIds.containsKey(row.getCreatedBy())) {
+            return new ParsedRow(line.number(), null, "Unknown creator: " + row.getCreatedBy());
+        }
+        if (row.getAssignedTo() != null && !userIds.containsKey(row.getAssignedTo())) {
+            return new ParsedRow(line.number(), null, "Unknown assignee: " + row.getAssignedTo());
+        }
+        for (TicketImportRow.CommentRow comment : row.getComments()) {
+            if (!userIds.containsKey(comment.getAuthor())) {
+                return new ParsedRow(line.number(), null, "Unknown comment author: " + comment.getAuthor());
+            }
+        }
+        
+        return new ParsedRow(line.number(), row, null);
+    }
+    
+    private Ticket toTicket(TicketImportRow row, Map<String, Long> userIds) {
+        Ticket ticket = Ticket.builder()
+                .subject(row.getSubject())
+                .description(row.getDescription())
+                .priority(row.getPriority())
+                .status(row.getStatus() != null ? row.getStatus() : TicketStatus.OPEN)
+                .createdBy(userReference(userIds.get(row.getCreatedBy())))
+                .assignedTo(row.getAssignedTo() != null ? userReference(userIds.get(row.getAssignedTo())) : null)
+                .resolvedAt(row.getResolvedAt())
+                .closedAt(row.getClosedAt())
+                .importedCreatedAt(row.getCreatedAt())
+                .commentCount(row.getComments().size())
+                .build();
+        
+        for (TicketImportRow.CommentRow commentRow : row.getComments()) {
+            ticket.getComments().add(Comment.builder()
+                    .content(commentRow.getContent())
+                    .ticket(ticket)
+                    .user(userReference(userIds.get(commentRow.getAuthor())))
+                    .importedCreatedAt(commentRow.getCreatedAt())
+                    .build());
+        }
+        
+        return ticket;
+    }
+    
+    private User userReference(Long id) {
+        return entityManager.getReference(User.class, id);
+    }
+    
+    private record NumberedLine(long number, String content) {
+    }
+    
+    private record ParsedRow(long line, TicketImportRow row, String error) {
+    }
+    
+    private class ImportJob {
+        private final String id;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ImportJobResponse.ImportRowError> errors = new ArrayList<>();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String message;
+        
+        private ImportJob(String id) {
+            this.id = id;
+        }
+        
+        private synchronized void addError(long line, String message) {
+            failed.incrementAndGet();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportJobResponse.ImportRowError(line, message));
+            }
+        }
+        
+        private void finish(String finalStatus) {
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+        
+        private synchronized ImportJobResponse toResponse() {
+            return ImportJobResponse.builder()
+                    .jobId(id)
+                    .status(status)
+                    .processed(processed.get())
+                    .imported(imported.get())
+                    .failed(failed.get())
+                    .errors(new ArrayList<>(errors))
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .message(message)
+                    .build();
+        }
+    }
+}
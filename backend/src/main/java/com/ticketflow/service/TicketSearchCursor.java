@@ -0,0 +1,31 @@
+package com.ticketflow.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Seek position in the (rank DESC, id DESC) ordering used by keyword searches
+public record TicketSearchCursor(float rank, Long id) {
+    
+    private static final char SEPARATOR = '|';
+    
+    public static TicketSearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            return new TicketSearchCursor(
+                    Float.parseFloat(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    public String encode() {
+        String raw = Float.toString(rank) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
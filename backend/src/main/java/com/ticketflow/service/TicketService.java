@@ -1,51 +1,133 @@
 package com.ticketflow.service;
 
+import com.ticketflow.config.AssignmentProperties;
 import com.ticketflow.dto.*;
 import com.ticketflow.model.*;
 import com.ticketflow.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class TicketService {
     
+    private static final int SEARCH_LOAD_CHUNK = 1000;
+    private static final String HIGHLIGHT_START = "\u0002";
+    private static final String HIGHLIGHT_STOP = "\u0003";
+    
+    // Associations fetched alongside tickets so that mapping a page never triggers lazy loads
+    private static final List<String> TICKET_RESPONSE_GRAPH =
+            List.of("createdBy", "assignedTo", "rating", "rating.ratedBy");
+    
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final AttachmentRepository attachmentRepository;
     private final RatingRepository ratingRepository;
     private final EmailService emailService;
+    private final SubjectTermIndex subjectTermIndex;
+    private final TicketCounters ticketCounters;
+    private final TicketStatsService ticketStatsService;
+    private final SlaService slaService;
+    private final AgentLoadIndex agentLoadIndex;
+    private final AssignmentProperties assignmentProperties;
+    private final TicketEventBus ticketEventBus;
+    private final TicketHistoryLog ticketHistoryLog;
+    private final TicketHistoryReplay ticketHistoryReplay;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    
+    @Value("${ticket.pagination.default-size:20}")
+    private int defaultPageSize;
+    
+    @Value("${ticket.pagination.max-size:100}")
+    private int maxPageSize;
+    
+    @Value("${ticket.search.max-results:500}")
+    private int maxSearchResults;
+    
+    @Value("${ticket.search.fuzzy.default-edits:1}")
+    private int defaultFuzzyEdits;
+    
+    @Value("${ticket.concurrency.max-attempts:3}")
+    private int maxConflictAttempts;
     
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (User) authentication.getPrincipal();
     }
     
+    // The principal is built from the token and holds only id, username and role; entities that
+    // reference the current user get a managed reference instead, loaded only if it is read
+    private User getCurrentUserReference(User currentUser) {
+        return userRepository.getReferenceById(currentUser.getId());
+    }
+    
     @Transactional
     public TicketResponse createTicket(TicketRequest request) {
         User currentUser = getCurrentUser();
         
+        // Route to the least-loaded agent; the reservation is released if this transaction rolls back.
+        // The index only holds enabled agents, so a reference will do; it is loaded when the email reads it
+        User assignee = assignmentProperties.isAutoAssign()
+                ? agentLoadIndex.reserve(request.getPriority()).map(userRepository::getReferenceById).orElse(null)
+                : null;
+        
         Ticket ticket = Ticket.builder()
                 .subject(request.getSubject())
                 .description(request.getDescription())
                 .priority(request.getPriority())
                 .status(TicketStatus.OPEN)
-                .createdBy(currentUser)
+                .createdBy(getCurrentUserReference(currentUser))
+                .assignedTo(assignee)
                 .build();
         
         ticket = ticketRepository.save(ticket);
-        
-        // Send email notification
-        emailService.sendTicketCreatedEmail(ticket);
+        subjectTermIndex.addSubject(ticket.getSubject());
+        ticketStatsService.ticketCreated(ticket);
+        slaService.statusChanged(ticket, ticket.getStatus());
+        ticketEventBus.publish(TicketEvent.Type.CREATED, ticket);
+        
+        // Queue email notifications
+        emailService.queue(emailService.buildTicketCreatedEmail(ticket));
+        if (assignee != null) {
+            emailService.queue(emailService.buildTicketAssignedEmail(ticket, assignee));
+        }
         
         return mapToTicketResponse(ticket);
     }
@@ -54,26 +136,39 @@ public class TicketService {
     public List<TicketResponse> getMyTickets() {
         User currentUser = getCurrentUser();
         List<Ticket> tickets = ticketRepository.findByCreatedByOrderByCreatedAtDesc(currentUser);
-        return tickets.stream()
-                .map(this::mapToTicketResponse)
-                .collect(Collectors.toList());
+        return mapToTicketResponses(tickets);
     }
     
     @Transactional(readOnly = true)
     public List<TicketResponse> getAssignedTickets() {
         User currentUser = getCurrentUser();
         List<Ticket> tickets = ticketRepository.findByAssignedToOrderByCreatedAtDesc(currentUser);
-        return tickets.stream()
-                .map(this::mapToTicketResponse)
-                .collect(Collectors.toList());
+        return mapToTicketResponses(tickets);
     }
     
     @Transactional(readOnly = true)
     public List<TicketResponse> getAllTickets() {
         List<Ticket> tickets = ticketRepository.findAllByOrderByCreatedAtDesc();
-        return tickets.stream()
-                .map(this::mapToTicketResponse)
-                .collect(Collectors.toList());
+        return mapToTicketResponses(tickets);
+    }
+    
+    @Transactional(readOnly = true)
+    public TicketPage getMyTicketsPage(String cursor, Integer size) {
+        User currentUser = getCurrentUser();
+        Specification<Ticket> spec = (root, query, cb) -> cb.equal(root.get("createdBy"), currentUser);
+        return findPage(spec, cursor, size);
+    }
+    
+    @Transactional(readOnly = true)
+    public TicketPage getAssignedTicketsPage(String cursor, Integer size) {
+        User currentUser = getCurrentUser();
+        Specification<Ticket> spec = (root, query, cb) -> cb.equal(root.get("assignedTo"), currentUser);
+        return findPage(spec, cursor, size);
+    }
+    
+    @Transactional(readOnly = true)
+    public TicketPage getAllTicketsPage(String cursor, Integer size) {
+        return findPage(Specification.where(null), cursor, size);
     }
     
     @Transactional(readOnly = true)
@@ -91,43 +186,209 @@ public class TicketService {
         return mapToTicketResponse(ticket);
     }
     
-    @Transactional
-    public TicketResponse updateTicketStatus(Long id, TicketStatus status) {
-        Ticket ticket = ticketRepository.findById(id)
+    // Status, assignment and other changes recorded for the ticket, oldest first
+    @Transactional(readOnly = true)
+    public List<TicketHistoryEntry> getTicketHistory(Long id) {
+        TicketRevision revision = ticketRepository.findRevisionById(id)
                 .orElseThrow(() -> new RuntimeException("Ticket not found"));
         
         User currentUser = getCurrentUser();
         
-        // Check permissions
-        if (!canUpdateTicketStatus(ticket, currentUser)) {
-            throw new RuntimeException("You don't have permission to update this ticket");
+        // Check access rights
+        if (!hasAccessToTicket(revision.getCreatedById(), currentUser)) {
+            throw new RuntimeException("You don't have permission to view this ticket");
         }
         
-        TicketStatus oldStatus = ticket.getStatus();
-        ticket.setStatus(status);
+        return ticketHistoryLog.read(id);
+    }
+    
+    // The ticket's status, assignee and rating as they were at the given time, rebuilt from its history
+    @Transactional(readOnly = true)
+    public TicketStateResponse getTicketStateAt(Long id, LocalDateTime at) {
+        TicketRevision revision = ticketRepository.findRevisionById(id)
+                .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        
+        User currentUser = getCurrentUser();
         
-        if (status == TicketStatus.RESOLVED) {
-            ticket.setResolvedAt(LocalDateTime.now());
-        } else if (status == TicketStatus.CLOSED) {
-            ticket.setClosedAt(LocalDateTime.now());
+        // Check access rights
+        if (!hasAccessToTicket(revision.getCreatedById(), currentUser)) {
+            throw new RuntimeException("You don't have permission to view this ticket");
         }
         
-        ticket = ticketRepository.save(ticket);
+        return ticketHistoryReplay.getTicketState(id, at);
+    }
+    
+    // Strong ETag for the ticket and its child collections, checked without loading the ticket
+    @Transactional(readOnly = true)
+    public String getTicketEtag(Long id) {
+        TicketRevision revision = ticketRepository.findRevisionById(id)
+                .orElseThrow(() -> new RuntimeException("Ticket not found"));
         
-        // Send email notification
-        emailService.sendTicketStatusChangedEmail(ticket, oldStatus, status);
+        User currentUser = getCurrentUser();
         
-        return mapToTicketResponse(ticket);
+        // Check access rights
+        if (!hasAccessToTicket(revision.getCreatedById(), currentUser)) {
+            throw new RuntimeException("You don't have permission to view this ticket");
+        }
+        
+        return id + "-" + revision.getRevision();
+    }
+    
+    public TicketResponse updateTicketStatus(Long id, TicketStatus status) {
+        AtomicReference<TicketStatus> firstReadStatus = new AtomicReference<>();
+        
+        return retryOnConflict(() -> {
+            Ticket ticket = ticketRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Ticket not found"));
+            
+            User currentUser = getCurrentUser();
+            
+            // Check permissions
+            if (!canUpdateTicketStatus(ticket, currentUser)) {
+                throw new RuntimeException("You don't have permission to update this ticket");
+            }
+            
+            TicketStatus oldStatus = ticket.getStatus();
+            // A retry may only re-apply the change if the competing write left the status alone
+            if (!firstReadStatus.compareAndSet(null, oldStatus) && firstReadStatus.get() != oldStatus) {
+                throw new OptimisticLockingFailureException("The ticket status was changed by someone else");
+            }
+            
+            LocalDateTime now = LocalDateTime.now();
+            ticketStatsService.statusChanged(ticket, status, status == TicketStatus.RESOLVED ? now : ticket.getResolvedAt());
+            slaService.statusChanged(ticket, status);
+            agentLoadIndex.statusChanged(ticket, status);
+            ticket.setStatus(status);
+            
+            if (status == TicketStatus.RESOLVED) {
+                ticket.setResolvedAt(now);
+            } else if (status == TicketStatus.CLOSED) {
+                ticket.setClosedAt(now);
+            }
+            
+            ticket = ticketRepository.save(ticket);
+            ticketCounters.incrementRevision(id);
+            TicketEvent event = ticketEventBus.toEvent(TicketEvent.Type.STATUS_CHANGED, ticket);
+            event.setPreviousStatus(oldStatus);
+            ticketEventBus.publish(event);
+            
+            // Queue email notification
+            emailService.queue(emailService.buildTicketStatusChangedEmail(ticket, oldStatus, status));
+            
+            return mapToTicketResponse(ticket);
+        });
     }
     
-    @Transactional
     public TicketResponse assignTicket(Long id, Long assigneeId) {
-        Ticket ticket = ticketRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        AtomicReference<Optional<Long>> firstReadAssignee = new AtomicReference<>();
+        
+        return retryOnConflict(() -> {
+            Ticket ticket = ticketRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Ticket not found"));
+            
+            User assignee = userRepository.findById(assigneeId)
+                    .orElseThrow(() -> new RuntimeException("Assignee not found"));
+            
+            User currentUser = getCurrentUser();
+            
+            // Check permissions
+            if (!canAssignTicket(currentUser)) {
+                throw new RuntimeException("You don't have permission to assign tickets");
+            }
+            
+            // A retry may only re-apply the change if the competing write left the assignee alone
+            Optional<Long> currentAssignee = Optional.ofNullable(ticket.getAssignedTo()).map(User::getId);
+            if (!firstReadAssignee.compareAndSet(null, currentAssignee) && !firstReadAssignee.get().equals(currentAssignee)) {
+                throw new OptimisticLockingFailureException("The ticket was reassigned by someone else");
+            }
+            
+            ticketStatsService.assigneeChanged(ticket, assignee);
+            agentLoadIndex.assigneeChanged(ticket, assignee);
+            ticket.setAssignedTo(assignee);
+            ticket = ticketRepository.save(ticket);
+            ticketCounters.incrementRevision(id);
+            TicketEvent event = ticketEventBus.toEvent(TicketEvent.Type.ASSIGNED, ticket);
+            event.setPreviousAssigneeId(currentAssignee.orElse(null));
+            ticketEventBus.publish(event);
+            
+            // Queue email notification
+            emailService.queue(emailService.buildTicketAssignedEmail(ticket, assignee));
+            
+            return mapToTicketResponse(ticket);
+        });
+    }
+    
+    // Runs the action in its own transaction and re-runs it, up to a few times, when another writer
+    // committed a change to the same ticket first. Callers re-check the fields they change on every
+    // attempt, so only non-overlapping (commutative) concurrent changes are retried; a real conflict
+    // surfaces as 409.
+    private <T> T retryOnConflict(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= maxConflictAttempts) {
+                    throw e;
+                }
+                log.debug("Optimistic lock conflict on attempt {}, retrying", attempt);
+                try {
+                    // Jittered backoff so the competing writers do not collide again
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(5, 25) * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    @Transactional
+    public BulkOperationResponse bulkUpdateStatus(BulkStatusRequest request) {
+        User currentUser = getCurrentUser();
+        Map<Long, BulkOperationResponse.Outcome> outcomes = new LinkedHashMap<>();
+        Map<Long, Ticket> tickets = loadForBulk(request.getTicketIds(), outcomes);
+        
+        List<Long> toUpdate = new ArrayList<>();
+        for (Ticket ticket : tickets.values()) {
+            if (!canUpdateTicketStatus(ticket, currentUser)) {
+                outcomes.put(ticket.getId(), BulkOperationResponse.Outcome.FORBIDDEN);
+            } else if (ticket.getStatus() == request.getStatus()) {
+                outcomes.put(ticket.getId(), BulkOperationResponse.Outcome.UNCHANGED);
+            } else {
+                outcomes.put(ticket.getId(), BulkOperationResponse.Outcome.UPDATED);
+                toUpdate.add(ticket.getId());
+            }
+        }
         
-        User assignee = userRepository.findById(assigneeId)
-                .orElseThrow(() -> new RuntimeException("Assignee not found"));
+        if (!toUpdate.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            ticketRepository.updateStatusByIds(toUpdate, request.getStatus(), now);
+            for (Long id : toUpdate) {
+                Ticket ticket = tickets.get(id);
+                ticketStatsService.statusChanged(ticket, request.getStatus(),
+                        request.getStatus() == TicketStatus.RESOLVED ? now : ticket.getResolvedAt());
+                slaService.statusChanged(ticket, request.getStatus());
+                agentLoadIndex.statusChanged(ticket, request.getStatus());
+                
+                // The bulk update bypassed the loaded entities, so the event carries the new status explicitly
+                TicketEvent event = ticketEventBus.toEvent(TicketEvent.Type.STATUS_CHANGED, ticket);
+                event.setStatus(request.getStatus());
+                event.setPreviousStatus(ticket.getStatus());
+                ticketEventBus.publish(event);
+            }
+            
+            List<OutboxEmail> notifications = toUpdate.stream()
+                    .map(tickets::get)
+                    .map(ticket -> emailService.buildTicketStatusChangedEmail(ticket, ticket.getStatus(), request.getStatus()))
+                    .collect(Collectors.toList());
+            emailService.queue(notifications);
+        }
         
+        return toBulkResponse(outcomes, toUpdate.size());
+    }
+    
+    @Transactional
+    public BulkOperationResponse bulkAssign(BulkAssignRequest request) {
         User currentUser = getCurrentUser();
         
         // Check permissions
@@ -135,13 +396,72 @@ public class TicketService {
             throw new RuntimeException("You don't have permission to assign tickets");
         }
         
-        ticket.setAssignedTo(assignee);
-        ticket = ticketRepository.save(ticket);
+        User assignee = userRepository.findById(request.getAssigneeId())
+                .orElseThrow(() -> new RuntimeException("Assignee not found"));
+        
+        Map<Long, BulkOperationResponse.Outcome> outcomes = new LinkedHashMap<>();
+        Map<Long, Ticket> tickets = loadForBulk(request.getTicketIds(), outcomes);
+        
+        List<Long> toUpdate = new ArrayList<>();
+        for (Ticket ticket : tickets.values()) {
+            if (ticket.getAssignedTo() != null && ticket.getAssignedTo().getId().equals(assignee.getId())) {
+                outcomes.put(ticket.getId(), BulkOperationResponse.Outcome.UNCHANGED);
+            } else {
+                outcomes.put(ticket.getId(), BulkOperationResponse.Outcome.UPDATED);
+                toUpdate.add(ticket.getId());
+            }
+        }
         
-        // Send email notification
-        emailService.sendTicketAssignedEmail(ticket, assignee);
+        if (!toUpdate.isEmpty()) {
+            ticketRepository.assignByIds(toUpdate, assignee, LocalDateTime.now());
+            for (Long id : toUpdate) {
+                ticketStatsService.assigneeChanged(tickets.get(id), assignee);
+                agentLoadIndex.assigneeChanged(tickets.get(id), assignee);
+                
+                TicketEvent event = ticketEventBus.toEvent(TicketEvent.Type.ASSIGNED, tickets.get(id));
+                event.setAssignedToId(assignee.getId());
+                event.setPreviousAssigneeId(tickets.get(id).getAssignedTo() != null ? tickets.get(id).getAssignedTo().getId() : null);
+                ticketEventBus.publish(event);
+            }
+            
+            List<OutboxEmail> notifications = toUpdate.stream()
+                    .map(tickets::get)
+                    .map(ticket -> emailService.buildTicketAssignedEmail(ticket, assignee))
+                    .collect(Collectors.toList());
+            emailService.queue(notifications);
+        }
         
-        return mapToTicketResponse(ticket);
+        return toBulkResponse(outcomes, toUpdate.size());
+    }
+    
+    // Locks and loads the requested tickets. Every id gets its outcome slot here, in request order,
+    // as NOT_FOUND; callers overwrite the slots of found tickets, which keeps their position.
+    // The bulk UPDATE does not check versions, so the rows are locked first: permission checks,
+    // UNCHANGED outcomes and the counters then see the state being replaced, and a single-ticket
+    // writer that read the rows earlier fails its version check instead of being overwritten.
+    private Map<Long, Ticket> loadForBulk(List<Long> ticketIds, Map<Long, BulkOperationResponse.Outcome> outcomes) {
+        ticketRepository.lockByIds(ticketIds);
+        Map<Long, Ticket> found = ticketRepository.findByIdIn(ticketIds).stream()
+                .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+        
+        Map<Long, Ticket> tickets = new LinkedHashMap<>();
+        for (Long id : ticketIds) {
+            outcomes.put(id, BulkOperationResponse.Outcome.NOT_FOUND);
+            if (found.containsKey(id)) {
+                tickets.put(id, found.get(id));
+            }
+        }
+        return tickets;
+    }
+    
+    private BulkOperationResponse toBulkResponse(Map<Long, BulkOperationResponse.Outcome> outcomes, int updated) {
+        return BulkOperationResponse.builder()
+                .requested(outcomes.size())
+                .updated(updated)
+                .results(outcomes.entrySet().stream()
+                        .map(entry -> new BulkOperationResponse.Result(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .build();
     }
     
     @Transactional
@@ -159,10 +479,12 @@ public class TicketService {
         Comment comment = Comment.builder()
                 .content(request.getContent())
                 .ticket(ticket)
-                .user(currentUser)
+                .user(getCurrentUserReference(currentUser))
                 .build();
         
         comment = commentRepository.save(comment);
+        ticketCounters.incrementCommentCount(ticketId);
+        ticketEventBus.publish(TicketEvent.Type.COMMENT_ADDED, ticket);
         
         return mapToCommentResponse(comment);
     }
@@ -185,54 +507,240 @@ public class TicketService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional
     public RatingResponse rateTicket(Long ticketId, RatingRequest request) {
-        Ticket ticket = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new RuntimeException("Ticket not found"));
-        
+        return retryOnConflict(() -> {
+            Ticket ticket = ticketRepository.findById(ticketId)
+                    .orElseThrow(() -> new RuntimeException("Ticket not found"));
+            
+            User currentUser = getCurrentUser();
+            
+            // Only ticket creator can rate
+            if (!ticket.getCreatedBy().getId().equals(currentUser.getId())) {
+                throw new RuntimeException("Only the ticket creator can rate the resolution");
+            }
+            
+            // Ticket must be resolved or closed
+            if (ticket.getStatus() != TicketStatus.RESOLVED && ticket.getStatus() != TicketStatus.CLOSED) {
+                throw new RuntimeException("Can only rate resolved or closed tickets");
+            }
+            
+            // Check if already rated
+            if (ratingRepository.findByTicketId(ticketId).isPresent()) {
+                throw new RuntimeException("Ticket has already been rated");
+            }
+            
+            Rating rating = Rating.builder()
+                    .ticket(ticket)
+                    .stars(request.getStars())
+                    .feedback(request.getFeedback())
+                    .ratedBy(getCurrentUserReference(currentUser))
+                    .build();
+            
+            try {
+                rating = ratingRepository.save(rating);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent rating got in first; the unique key on ratings.ticket_id refused this one
+                throw new OptimisticLockingFailureException("Ticket has already been rated", e);
+            }
+            ticketCounters.incrementRevision(ticketId);
+            TicketEvent event = ticketEventBus.toEvent(TicketEvent.Type.RATED, ticket);
+            event.setStars(rating.getStars());
+            ticketEventBus.publish(event);
+            
+            return mapToRatingResponse(rating);
+        });
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TicketResponse> searchTickets(String keyword, TicketStatus status, Priority priority) {
         User currentUser = getCurrentUser();
         
-        // Only ticket creator can rate
-        if (!ticket.getCreatedBy().getId().equals(currentUser.getId())) {
-            throw new RuntimeException("Only the ticket creator can rate the resolution");
+        if (keyword != null && !keyword.isBlank()) {
+            // The unpaged form returns every match, as the LIKE search it replaced did
+            return searchFullText(keyword, status, priority, currentUser, null, Integer.MAX_VALUE);
         }
         
-        // Ticket must be resolved or closed
-        if (ticket.getStatus() != TicketStatus.RESOLVED && ticket.getStatus() != TicketStatus.CLOSED) {
-            throw new RuntimeException("Can only rate resolved or closed tickets");
+        Specification<Ticket> spec = buildFilterSpecification(status, priority, currentUser);
+        List<Ticket> tickets = ticketRepository.findAll(spec);
+        return mapToTicketResponses(tickets);
+    }
+    
+    @Transactional(readOnly = true)
+    public TicketPage searchTicketsPage(String keyword, TicketStatus status, Priority priority,
+                                        String cursor, Integer size) {
+        User currentUser = getCurrentUser();
+        
+        if (keyword == null || keyword.isBlank()) {
+            return findPage(buildFilterSpecification(status, priority, currentUser), cursor, size);
         }
         
-        // Check if already rated
-        if (ratingRepository.findByTicketId(ticketId).isPresent()) {
-            throw new RuntimeException("Ticket has already been rated");
+        // Keyword searches are ordered by relevance, so they page on (rank, id) instead
+        int pageSize = resolvePageSize(size);
+        TicketSearchCursor after = cursor != null && !cursor.isEmpty() ? TicketSearchCursor.decode(cursor) : null;
+        
+        List<TicketResponse> items = searchFullText(keyword, status, priority, currentUser, after, pageSize + 1);
+        
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
         }
         
-        Rating rating = Rating.builder()
-                .ticket(ticket)
-                .stars(request.getStars())
-                .feedback(request.getFeedback())
-                .ratedBy(currentUser)
+        TicketResponse last = hasMore ? items.get(items.size() - 1) : null;
+        return TicketPage.builder()
+                .items(items)
+                .next(last != null ? new TicketSearchCursor(last.getSearchRank(), last.getId()).encode() : null)
+                .size(pageSize)
                 .build();
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TicketResponse> fuzzySearchTickets(String keyword, TicketStatus status, Priority priority,
+                                                   Integer maxEdits) {
+        return fuzzySearch(keyword, status, priority, maxEdits, null, maxSearchResults);
+    }
+    
+    @Transactional(readOnly = true)
+    public TicketPage fuzzySearchTicketsPage(String keyword, TicketStatus status, Priority priority,
+                                             Integer maxEdits, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        TicketSearchCursor after = cursor != null && !cursor.isEmpty() ? TicketSearchCursor.decode(cursor) : null;
         
-        rating = ratingRepository.save(rating);
+        List<TicketResponse> items = fuzzySearch(keyword, status, priority, maxEdits, after, pageSize + 1);
         
-        return mapToRatingResponse(rating);
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
+        }
+        
+        TicketResponse last = hasMore ? items.get(items.size() - 1) : null;
+        return TicketPage.builder()
+                .items(items)
+                .next(last != null ? new TicketSearchCursor(last.getSearchRank(), last.getId()).encode() : null)
+                .size(pageSize)
+                .build();
     }
     
-    @Transactional(readOnly = true)
-    public List<TicketResponse> searchTickets(String keyword, TicketStatus status, Priority priority) {
+    // Typo-tolerant subject search: each query term is expanded to the subject words within
+    // maxEdits and the expansions are matched with trigram-indexed LIKEs. The query itself ranks
+    // every match by the similarity of its closest expansion per term and pages on (score, id),
+    // so the best matches are found however old they are.
+    private List<TicketResponse> fuzzySearch(String keyword, TicketStatus status, Priority priority,
+                                             Integer maxEdits, TicketSearchCursor after, int limit) {
         User currentUser = getCurrentUser();
+        List<String> terms = SubjectTermIndex.tokenize(keyword);
+        if (terms.isEmpty()) {
+            throw new RuntimeException("Fuzzy search needs at least one term of "
+                    + SubjectTermIndex.MIN_TERM_LENGTH + " or more characters");
+        }
         
-        Specification<Ticket> spec = Specification.where(null);
+        int requestedEdits = maxEdits != null ? maxEdits : defaultFuzzyEdits;
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Ticket> root = query.from(Ticket.class);
+        Expression<String> subject = cb.lower(root.get("subject"));
         
-        if (keyword != null && !keyword.isEmpty()) {
-            spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("subject")), "%" + keyword.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("description")), "%" + keyword.toLowerCase() + "%")
-                    )
-            );
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filters = buildFilterSpecification(status, priority, currentUser).toPredicate(root, query, cb);
+        if (filters != null) {
+            predicates.add(filters);
+        }
+        // Sum over terms of the similarity (in thousandths) of the most similar expansion in the subject
+        Expression<Integer> score = null;
+        for (String term : terms) {
+            List<String> expansions = new ArrayList<>(
+                    subjectTermIndex.expand(term, subjectTermIndex.allowedEdits(term, requestedEdits)));
+            expansions.sort(Comparator.comparingInt((String word) -> SubjectTermIndex.similarity(term, word)).reversed());
+            
+            CriteriaBuilder.Case<Integer> termScore = cb.selectCase();
+            List<Predicate> matches = new ArrayList<>();
+            for (String word : expansions) {
+                Predicate match = cb.like(subject, "%" + word + "%");
+                matches.add(match);
+                termScore = termScore.when(match, SubjectTermIndex.similarity(term, word));
+            }
+            predicates.add(cb.or(matches.toArray(Predicate[]::new)));
+            Expression<Integer> termExpression = termScore.otherwise(0);
+            score = score == null ? termExpression : cb.sum(score, termExpression);
+        }
+        
+        Path<Long> id = root.get("id");
+        if (after != null) {
+            int afterScore = Math.round(after.rank() * SubjectTermIndex.SIMILARITY_SCALE * terms.size());
+            predicates.add(cb.or(
+                    cb.lessThan(score, afterScore),
+                    cb.and(cb.equal(score, afterScore), cb.lessThan(id, after.id()))
+            ));
+        }
+        query.multiselect(id, score)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(score), cb.desc(id));
+        List<Tuple> hits = entityManager.createQuery(query).setMaxResults(limit).getResultList();
+        
+        Map<Long, Ticket> tickets = ticketRepository.findByIdIn(hits.stream().map(hit -> hit.get(0, Long.class)).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+        
+        // searchRank is the mean similarity over the terms, 1 when every term occurs as typed
+        List<TicketResponse> results = new ArrayList<>();
+        for (Tuple hit : hits) {
+            Ticket ticket = tickets.get(hit.get(0, Long.class));
+            if (ticket != null) {
+                TicketResponse response = mapToTicketResponse(ticket);
+                response.setSearchRank((float) hit.get(1, Integer.class) / (SubjectTermIndex.SIMILARITY_SCALE * terms.size()));
+                results.add(response);
+            }
+        }
+        return results;
+    }
+    
+    private List<TicketResponse> searchFullText(String keyword, TicketStatus status, Priority priority,
+                                                User currentUser, TicketSearchCursor after, int limit) {
+        List<TicketSearchHit> hits = ticketRepository.searchFullText(
+                keyword,
+                status != null ? status.name() : null,
+                priority != null ? priority.name() : null,
+                currentUser.getRole() == Role.USER ? currentUser.getId() : null,
+                after != null ? after.rank() : null,
+                after != null ? after.id() : null,
+                limit
+        );
+        
+        // Loaded in chunks, as an unpaged search can match more tickets than one IN list may hold
+        Map<Long, Ticket> tickets = new HashMap<>();
+        for (int from = 0; from < hits.size(); from += SEARCH_LOAD_CHUNK) {
+            List<Long> ids = hits.subList(from, Math.min(from + SEARCH_LOAD_CHUNK, hits.size())).stream()
+                    .map(TicketSearchHit::getTicketId)
+                    .collect(Collectors.toList());
+            ticketRepository.findByIdIn(ids).forEach(ticket -> tickets.put(ticket.getId(), ticket));
+        }
+        
+        // Keep the relevance order of the hits
+        List<TicketResponse> results = new ArrayList<>();
+        for (TicketSearchHit hit : hits) {
+            Ticket ticket = tickets.get(hit.getTicketId());
+            if (ticket != null) {
+                TicketResponse response = mapToTicketResponse(ticket);
+                response.setSearchRank(hit.getRank());
+                response.setSnippet(toHighlightHtml(hit.getSnippet()));
+                results.add(response);
+            }
         }
+        return results;
+    }
+    
+    // The headline is raw ticket text with matches between U+0002 and U+0003 (see TicketRepository.searchFullText);
+    // clients may render the snippet as HTML, so the text is escaped before the <mark> tags are added
+    private static String toHighlightHtml(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(HIGHLIGHT_START, "<mark>")
+                .replace(HIGHLIGHT_STOP, "</mark>");
+    }
+    
+    private Specification<Ticket> buildFilterSpecification(TicketStatus status, Priority priority, User currentUser) {
+        Specification<Ticket> spec = Specification.where(null);
         
         if (status != null) {
             spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), status));
@@ -249,20 +757,61 @@ public class TicketService {
             );
         }
         
-        List<Ticket> tickets = ticketRepository.findAll(spec);
-        return tickets.stream()
-                .map(this::mapToTicketResponse)
-                .collect(Collectors.toList());
+        return spec;
+    }
+    
+    // Seek pagination on (createdAt, id): fetch one extra row to know whether a next page exists
+    private TicketPage findPage(Specification<Ticket> spec, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        
+        if (cursor != null && !cursor.isEmpty()) {
+            TicketCursor after = TicketCursor.decode(cursor);
+            spec = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.<LocalDateTime>get("createdAt"), after.createdAt()),
+                    cb.and(
+                            cb.equal(root.get("createdAt"), after.createdAt()),
+                            cb.lessThan(root.<Long>get("id"), after.id())
+                    )
+            ));
+        }
+        
+        Sort sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        List<Ticket> tickets = ticketRepository.findBy(spec, q -> q.sortBy(sort)
+                .project(TICKET_RESPONSE_GRAPH)
+                .limit(pageSize + 1)
+                .all());
+        
+        boolean hasMore = tickets.size() > pageSize;
+        if (hasMore) {
+            tickets = tickets.subList(0, pageSize);
+        }
+        
+        return TicketPage.builder()
+                .items(mapToTicketResponses(tickets))
+                .next(hasMore ? TicketCursor.of(tickets.get(tickets.size() - 1)).encode() : null)
+                .size(pageSize)
+                .build();
+    }
+    
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
     }
     
     private boolean hasAccessToTicket(Ticket ticket, User user) {
+        return hasAccessToTicket(ticket.getCreatedBy().getId(), user);
+    }
+    
+    private boolean hasAccessToTicket(Long createdById, User user) {
         if (user.getRole() == Role.ADMIN) {
             return true;
         }
         if (user.getRole() == Role.SUPPORT_AGENT) {
             return true;
         }
-        return ticket.getCreatedBy().getId().equals(user.getId());
+        return createdById.equals(user.getId());
     }
     
     private boolean canUpdateTicketStatus(Ticket ticket, User user) {
@@ -280,6 +829,12 @@ public class TicketService {
         return user.getRole() == Role.ADMIN || user.getRole() == Role.SUPPORT_AGENT;
     }
     
+    private List<TicketResponse> mapToTicketResponses(List<Ticket> tickets) {
+        return tickets.stream()
+                .map(this::mapToTicketResponse)
+                .collect(Collectors.toList());
+    }
+    
     private TicketResponse mapToTicketResponse(Ticket ticket) {
         return TicketResponse.builder()
                 .id(ticket.getId())
@@ -293,8 +848,8 @@ public class TicketService {
                 .updatedAt(ticket.getUpdatedAt())
                 .resolvedAt(ticket.getResolvedAt())
                 .closedAt(ticket.getClosedAt())
-                .commentCount(ticket.getComments() != null ? ticket.getComments().size() : 0)
-                .attachmentCount(ticket.getAttachments() != null ? ticket.getAttachments().size() : 0)
+                .commentCount(ticket.getCommentCount())
+                .attachmentCount(ticket.getAttachmentCount())
                 .rating(ticket.getRating() != null ? mapToRatingResponse(ticket.getRating()) : null)
                 .build();
     }
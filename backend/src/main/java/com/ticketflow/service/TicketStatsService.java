@@ -0,0 +1,209 @@
+package com.ticketflow.service;
+
+import com.ticketflow.dto.TicketStatsResponse;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dashboard statistics kept as in-memory counters. TicketService reports every status,
+ * assignment and creation change, and the counters are adjusted once the change commits,
+ * so reading the statistics never touches the tickets table. The counters are rebuilt from
+ * the database on startup and periodically, which also repairs any drift (e.g. tickets
+ * changed by hand, or a change that committed while a rebuild was running).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketStatsService {
+    
+    public static final Set<TicketStatus> OPEN_STATUSES = EnumSet.of(TicketStatus.OPEN, TicketStatus.IN_PROGRESS);
+    
+    private final TicketRepository ticketRepository;
+    private final UserRepository userRepository;
+    
+    // All counters are guarded by this
+    private final Map<TicketStatus, Long> byStatus = new EnumMap<>(TicketStatus.class);
+    private final Map<Priority, Long> byPriority = new EnumMap<>(Priority.class);
+    private final Map<Long, TicketStatsResponse.AgentLoad> openByAgent = new HashMap<>();
+    private long resolvedTickets;
+    private double resolutionSeconds;
+    private LocalDateTime rebuiltAt;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${ticket.stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${ticket.stats.reconcile-interval-ms:600000}"
+    )
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public void rebuild() {
+        Map<TicketStatus, Long> statusCounts = new EnumMap<>(TicketStatus.class);
+        for (Object[] row : ticketRepository.countByStatus()) {
+            statusCounts.put((TicketStatus) row[0], (Long) row[1]);
+        }
+        
+        Map<Priority, Long> priorityCounts = new EnumMap<>(Priority.class);
+        for (Object[] row : ticketRepository.countByPriority()) {
+            priorityCounts.put((Priority) row[0], (Long) row[1]);
+        }
+        
+        // Every agent is listed, including those without open tickets
+        Map<Long, TicketStatsResponse.AgentLoad> agentLoads = new HashMap<>();
+        for (User agent : userRepository.findByRole(Role.SUPPORT_AGENT)) {
+            agentLoads.put(agent.getId(), toAgentLoad(agent, 0));
+        }
+        Map<Long, Long> openCounts = new HashMap<>();
+        for (Object[] row : ticketRepository.countByAssigneeAndStatusIn(OPEN_STATUSES)) {
+            openCounts.put((Long) row[0], (Long) row[1]);
+        }
+        for (User assignee : userRepository.findAllById(openCounts.keySet())) {
+            agentLoads.put(assignee.getId(), toAgentLoad(assignee, openCounts.get(assignee.getId())));
+        }
+        
+        Object[] resolution = ticketRepository.sumResolutionSeconds().get(0);
+        
+        synchronized (this) {
+            byStatus.clear();
+            byStatus.putAll(statusCounts);
+            byPriority.clear();
+            byPriority.putAll(priorityCounts);
+            openByAgent.clear();
+            openByAgent.putAll(agentLoads);
+            resolvedTickets = ((Number) resolution[0]).longValue();
+            resolutionSeconds = ((Number) resolution[1]).doubleValue();
+            rebuiltAt = LocalDateTime.now();
+        }
+        log.debug("Ticket statistics rebuilt");
+    }
+    
+    public synchronized TicketStatsResponse getStats() {
+        List<TicketStatsResponse.AgentLoad> agents = new ArrayList<>();
+        for (TicketStatsResponse.AgentLoad load : openByAgent.values()) {
+            agents.add(new TicketStatsResponse.AgentLoad(load.getAgentId(), load.getUsername(), load.getFullName(), load.getOpenTickets()));
+        }
+        agents.sort(Comparator.comparing(TicketStatsResponse.AgentLoad::getUsername));
+        
+        return TicketStatsResponse.builder()
+                .totalTickets(byStatus.values().stream().mapToLong(Long::longValue).sum())
+                .byStatus(new EnumMap<>(byStatus))
+                .byPriority(new EnumMap<>(byPriority))
+                .openByAgent(agents)
+                .resolvedTickets(resolvedTickets)
+                .meanTimeToResolveHours(resolvedTickets > 0 ? resolutionSeconds / resolvedTickets / 3600 : null)
+                .rebuiltAt(rebuiltAt)
+                .build();
+    }
+    
+    // Change hooks: statusChanged and assigneeChanged take the ticket as it was before the change;
+    // the difference is applied when the surrounding transaction commits
+    
+    public void ticketCreated(Ticket ticket) {
+        TicketStatus status = ticket.getStatus();
+        Priority priority = ticket.getPriority();
+        User assignee = ticket.getAssignedTo();
+        
+        onCommit(() -> {
+            byStatus.merge(status, 1L, Long::sum);
+            byPriority.merge(priority, 1L, Long::sum);
+            if (assignee != null && OPEN_STATUSES.contains(status)) {
+                adjustAgent(assignee, 1);
+            }
+        });
+    }
+    
+    public void statusChanged(Ticket ticket, TicketStatus newStatus, LocalDateTime newResolvedAt) {
+        TicketStatus oldStatus = ticket.getStatus();
+        User assignee = ticket.getAssignedTo();
+        LocalDateTime createdAt = ticket.getCreatedAt();
+        LocalDateTime oldResolvedAt = ticket.getResolvedAt();
+        
+        onCommit(() -> {
+            byStatus.merge(oldStatus, -1L, Long::sum);
+            byStatus.merge(newStatus, 1L, Long::sum);
+            
+            if (assignee != null && OPEN_STATUSES.contains(oldStatus) != OPEN_STATUSES.contains(newStatus)) {
+                adjustAgent(assignee, OPEN_STATUSES.contains(newStatus) ? 1 : -1);
+            }
+            
+            // Mirrors resolved_at: set on every move to RESOLVED, never cleared
+            if (newResolvedAt != null && !newResolvedAt.equals(oldResolvedAt)) {
+                if (oldResolvedAt != null) {
+                    resolutionSeconds -= secondsBetween(createdAt, oldResolvedAt);
+                } else {
+                    resolvedTickets++;
+                }
+                resolutionSeconds += secondsBetween(createdAt, newResolvedAt);
+            }
+        });
+    }
+    
+    public void assigneeChanged(Ticket ticket, User newAssignee) {
+        User oldAssignee = ticket.getAssignedTo();
+        boolean open = OPEN_STATUSES.contains(ticket.getStatus());
+        
+        onCommit(() -> {
+            if (!open) {
+                return;
+            }
+            if (oldAssignee != null) {
+                adjustAgent(oldAssignee, -1);
+            }
+            adjustAgent(newAssignee, 1);
+        });
+    }
+    
+    private void onCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this) {
+                change.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (TicketStatsService.this) {
+                    change.run();
+                }
+            }
+        });
+    }
+    
+    private void adjustAgent(User agent, long delta) {
+        TicketStatsResponse.AgentLoad load = openByAgent.computeIfAbsent(agent.getId(), id -> toAgentLoad(agent, 0));
+        load.setOpenTickets(load.getOpenTickets() + delta);
+    }
+    
+    private TicketStatsResponse.AgentLoad toAgentLoad(User agent, long openTickets) {
+        return new TicketStatsResponse.AgentLoad(agent.getId(), agent.getUsername(), agent.getFullName(), openTickets);
+    }
+    
+    private double secondsBetween(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 1000.0;
+    }
+}
@@ -5,6 +5,7 @@ import com.ticketflow.dto.UserResponse;
 import com.ticketflow.model.Role;
 import com.ticketflow.model.User;
 import com.ticketflow.repository.UserRepository;
+import com.ticketflow.security.AccountVersions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,8 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AgentLoadIndex agentLoadIndex;
+    private final AccountVersions accountVersions;
     
     @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
@@ -61,6 +64,7 @@ public class UserService {
                 .build();
         
         user = userRepository.save(user);
+        agentLoadIndex.userChanged(user);
         return mapToUserResponse(user);
     }
     
@@ -70,7 +74,11 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.setRole(role);
+        // Tokens carry the role, so the ones issued before are refused
+        user.setAccountVersion(user.getAccountVersion() + 1);
         user = userRepository.save(user);
+        agentLoadIndex.userChanged(user);
+        accountVersions.userChanged(user);
         return mapToUserResponse(user);
     }
     
@@ -80,6 +88,8 @@ public class UserService {
             throw new RuntimeException("User not found");
         }
         userRepository.deleteById(id);
+        agentLoadIndex.userDeleted(id);
+        accountVersions.userDeleted(id);
     }
     
     @Transactional
@@ -88,7 +98,10 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.setEnabled(!user.getEnabled());
+        user.setAccountVersion(user.getAccountVersion() + 1);
         user = userRepository.save(user);
+        agentLoadIndex.userChanged(user);
+        accountVersions.userChanged(user);
         return mapToUserResponse(user);
     }
     
@@ -0,0 +1,8 @@
+-- Ticket and comment ids moved from IDENTITY columns to pooled sequences (allocation size 50).
+-- On databases that already hold rows, move each sequence past the highest existing id so the
+-- first block Hibernate allocates cannot collide. No-op once the sequence is ahead.
+SELECT setval('tickets_seq', (SELECT MAX(id) FROM tickets))
+WHERE (SELECT MAX(id) FROM tickets) > (SELECT last_value FROM tickets_seq);
+
+SELECT setval('comments_seq', (SELECT MAX(id) FROM comments))
+WHERE (SELECT MAX(id) FROM comments) > (SELECT last_value FROM comments_seq);
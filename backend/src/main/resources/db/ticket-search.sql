@@ -0,0 +1,17 @@
+-- Full-text search support for tickets (PostgreSQL).
+-- Runs after Hibernate has created/updated the schema; every statement is idempotent.
+-- The generated column is recomputed by the database on every insert/update, so the
+-- index stays in sync with ticket subject/description without application code.
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(subject, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_tickets_search_vector ON tickets USING GIN (search_vector);
+
+-- Trigram index for the fuzzy subject matcher: serves the LIKE '%word%' predicates built
+-- from SubjectTermIndex expansions without a sequential scan.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_tickets_subject_trgm ON tickets USING GIN (lower(subject) gin_trgm_ops);
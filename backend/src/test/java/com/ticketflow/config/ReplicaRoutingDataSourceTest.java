@@ -0,0 +1,191 @@
+package com.ticketflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Routing through DataSourceConfig against two in-memory H2 databases, one playing the primary and
+// one a PostgreSQL standby whose replication state the test controls
+class ReplicaRoutingDataSourceTest {
+    
+    private static final long STICKY_WINDOW_MS = 300;
+    
+    private HikariDataSource primary;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    
+    @BeforeEach
+    void createDatabases() {
+        String run = Long.toString(System.nanoTime());
+        String primaryUrl = "jdbc:h2:mem:primary-" + run + ";DB_CLOSE_DELAY=-1";
+        String replicaUrl = "jdbc:h2:mem:replica-" + run + ";DB_CLOSE_DELAY=-1";
+        createSchema(primaryUrl, "primary");
+        createSchema(replicaUrl, "replica");
+        Standby.catchUp();
+        
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(primaryUrl);
+        properties.setUsername("sa");
+        properties.setPassword("");
+        properties.setDriverClassName("org.h2.Driver");
+        ReplicaDataSourceProperties.Replica replica = new ReplicaDataSourceProperties.Replica();
+        replica.setUrl(replicaUrl);
+        replica.setUsername("sa");
+        replica.setPassword("");
+        ReplicaDataSourceProperties replicaProperties = new ReplicaDataSourceProperties();
+        replicaProperties.setReplicas(List.of(replica));
+        replicaProperties.setStickyWindowMs(STICKY_WINDOW_MS);
+        
+        DataSourceConfig config = new DataSourceConfig();
+        primary = config.primaryDataSource(properties);
+        routing = config.routingDataSource(primary, properties, replicaProperties);
+        routing.afterPropertiesSet();
+        DataSource dataSource = config.dataSource(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+    
+    @AfterEach
+    void closeDatabases() {
+        SecurityContextHolder.clearContext();
+        routing.close();
+        primary.close();
+    }
+    
+    @Test
+    void readOnlyTransactionsGoToACaughtUpReplica() {
+        // Not in rotation until the first lag check has seen it
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        
+        routing.checkReplicaLag();
+        
+        assertThat(readOnlyServer()).isEqualTo("replica");
+        assertThat(readWriteServer()).isEqualTo("primary");
+    }
+    
+    @Test
+    void laggingReplicaFallsBackToThePrimaryUntilItCatchesUp() {
+        routing.checkReplicaLag();
+        assertThat(readOnlyServer()).isEqualTo("replica");
+        
+        Standby.fallBehind(60_000);
+        routing.checkReplicaLag();
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        
+        Standby.catchUp();
+        routing.checkReplicaLag();
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+    
+    @Test
+    void readsStayOnThePrimaryAfterTheUsersOwnWrite() throws InterruptedException {
+        routing.checkReplicaLag();
+        
+        as("alice");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE server SET writes = writes + 1"));
+        assertThat(readOnlyServer()).isEqualTo("primary");
+        
+        // Only the writer is pinned
+        as("bob");
+        assertThat(readOnlyServer()).isEqualTo("replica");
+        
+        as("alice");
+        Thread.sleep(STICKY_WINDOW_MS + 100);
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+    
+    @Test
+    void rolledBackWriteDoesNotPinTheUser() {
+        routing.checkReplicaLag();
+        
+        as("alice");
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE server SET writes = writes + 1");
+            status.setRollbackOnly();
+        });
+        
+        assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+    
+    private String readOnlyServer() {
+        return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+    }
+    
+    private String readWriteServer() {
+        return readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+    }
+    
+    private static void as(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+    
+    private static void createSchema(String url, String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername("sa");
+        try (dataSource) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE server (name VARCHAR(20), writes INT)");
+            jdbc.update("INSERT INTO server VALUES (?, 0)", name);
+            // The functions the lag query calls on a PostgreSQL standby
+            jdbc.execute("CREATE ALIAS pg_is_in_recovery FOR '" + Standby.class.getName() + ".inRecovery'");
+            jdbc.execute("CREATE ALIAS pg_last_wal_receive_lsn FOR '" + Standby.class.getName() + ".receiveLsn'");
+            jdbc.execute("CREATE ALIAS pg_last_wal_replay_lsn FOR '" + Standby.class.getName() + ".replayLsn'");
+            jdbc.execute("CREATE ALIAS pg_last_xact_replay_timestamp FOR '" + Standby.class.getName() + ".replayTimestamp'");
+        }
+    }
+    
+    public static class Standby {
+        
+        private static volatile String receiveLsn;
+        private static volatile String replayLsn;
+        private static volatile OffsetDateTime replayTimestamp;
+        
+        static void catchUp() {
+            receiveLsn = "0/100";
+            replayLsn = "0/100";
+            replayTimestamp = OffsetDateTime.now();
+        }
+        
+        // WAL has arrived past what was replayed, and the last replayed transaction is lagMs old
+        static void fallBehind(long lagMs) {
+            receiveLsn = "0/200";
+            replayLsn = "0/100";
+            replayTimestamp = OffsetDateTime.now().minusNanos(lagMs * 1_000_000);
+        }
+        
+        public static boolean inRecovery() {
+            return true;
+        }
+        
+        public static String receiveLsn() {
+            return receiveLsn;
+        }
+        
+        public static String replayLsn() {
+            return replayLsn;
+        }
+        
+        public static OffsetDateTime replayTimestamp() {
+            return replayTimestamp;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ticketflow.repository;
+
+import com.ticketflow.model.Comment;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Rating;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every listing must load a page of tickets, with everything TicketResponse reads, in one statement
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Cache hits would hide missing fetches
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class TicketRepositoryTest {
+    
+    private static final int TICKETS = 12;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private User creator;
+    private User agent;
+    
+    @BeforeEach
+    void createTickets() {
+        creator = entityManager.persist(user("creator", Role.USER));
+        agent = entityManager.persist(user("agent", Role.SUPPORT_AGENT));
+        for (int i = 0; i < TICKETS; i++) {
+            Ticket ticket = entityManager.persist(Ticket.builder()
+                    .subject("Ticket " + i)
+                    .description("Description " + i)
+                    .priority(Priority.values()[i % Priority.values().length])
+                    .status(i % 3 == 0 ? TicketStatus.RESOLVED : TicketStatus.OPEN)
+                    .createdBy(creator)
+                    .assignedTo(i % 2 == 0 ? agent : null)
+                    .build());
+            entityManager.persist(Comment.builder().content("Comment " + i).ticket(ticket).user(agent).build());
+            if (i % 3 == 0) {
+                entityManager.persist(Rating.builder().ticket(ticket).stars(4).ratedBy(creator).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void findAllByOrderByCreatedAtDescUsesOneStatement() {
+        assertSingleStatement(() -> ticketRepository.findAllByOrderByCreatedAtDesc(), TICKETS);
+    }
+    
+    @Test
+    void findByCreatedByUsesOneStatement() {
+        assertSingleStatement(() -> ticketRepository.findByCreatedByOrderByCreatedAtDesc(creator), TICKETS);
+    }
+    
+    @Test
+    void findByAssignedToUsesOneStatement() {
+        assertSingleStatement(() -> ticketRepository.findByAssignedToOrderByCreatedAtDesc(agent), TICKETS / 2);
+    }
+    
+    @Test
+    void findAllBySpecificationUsesOneStatement() {
+        Specification<Ticket> spec = (root, query, cb) -> cb.equal(root.get("createdBy"), creator);
+        assertSingleStatement(() -> ticketRepository.findAll(spec), TICKETS);
+    }
+    
+    @Test
+    void cursorPageProjectionUsesOneStatement() {
+        Specification<Ticket> spec = (root, query, cb) -> cb.equal(root.get("status"), TicketStatus.OPEN);
+        Sort sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        assertSingleStatement(() -> ticketRepository.findBy(spec, q -> q.sortBy(sort)
+                .project(List.of("createdBy", "assignedTo", "rating", "rating.ratedBy"))
+                .limit(5)
+                .all()), 5);
+    }
+    
+    private void assertSingleStatement(Supplier<List<Ticket>> listing, int expectedTickets) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        List<Ticket> tickets = listing.get();
+        // Everything TicketService.mapToTicketResponse reads
+        for (Ticket ticket : tickets) {
+            assertThat(ticket.getCreatedBy().getFullName()).isNotNull();
+            if (ticket.getAssignedTo() != null) {
+                assertThat(ticket.getAssignedTo().getFullName()).isNotNull();
+            }
+            if (ticket.getRating() != null) {
+                assertThat(ticket.getRating().getRatedBy().getFullName()).isNotNull();
+            }
+            assertThat(ticket.getCommentCount()).isNotNull();
+            assertThat(ticket.getAttachmentCount()).isNotNull();
+        }
+        
+        assertThat(tickets).hasSize(expectedTickets);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    private static User user(String username, Role role) {
+        return User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .fullName("Full " + username)
+                .role(role)
+                .enabled(true)
+                .build();
+    }
+}
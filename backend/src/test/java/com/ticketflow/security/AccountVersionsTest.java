@@ -0,0 +1,125 @@
+package com.ticketflow.security;
+
+import com.ticketflow.model.User;
+import com.ticketflow.repository.AccountVersion;
+import com.ticketflow.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccountVersionsTest {
+    
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+    private static final long NEW_USER = 3L;
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final List<AccountVersion> stored = new ArrayList<>();
+    private AccountVersions accountVersions;
+    
+    @BeforeEach
+    void setUp() {
+        stored.add(account(ALICE, 0));
+        stored.add(account(BOB, 2));
+        when(userRepository.findAllAccountVersions()).thenAnswer(invocation -> List.copyOf(stored));
+        accountVersions = new AccountVersions(userRepository);
+        accountVersions.reload();
+    }
+    
+    @Test
+    void acceptsTokensOfTheCurrentVersionOnly() {
+        assertThat(accountVersions.isCurrent(ALICE, 0, minutesAgo(5))).isTrue();
+        assertThat(accountVersions.isCurrent(BOB, 2, minutesAgo(5))).isTrue();
+        assertThat(accountVersions.isCurrent(BOB, 1, minutesAgo(5))).isFalse();
+    }
+    
+    @Test
+    void changeRefusesTokensOfEarlierVersions() {
+        accountVersions.userChanged(user(ALICE, 1));
+        
+        assertThat(accountVersions.isCurrent(ALICE, 0, new Date())).isFalse();
+        assertThat(accountVersions.isCurrent(ALICE, 1, new Date())).isTrue();
+    }
+    
+    @Test
+    void changeNeverLowersTheVersion() {
+        accountVersions.userChanged(user(BOB, 1));
+        
+        assertThat(accountVersions.isCurrent(BOB, 1, new Date())).isFalse();
+        assertThat(accountVersions.isCurrent(BOB, 2, new Date())).isTrue();
+    }
+    
+    @Test
+    void deletionRefusesEveryToken() {
+        accountVersions.userDeleted(ALICE);
+        
+        assertThat(accountVersions.isCurrent(ALICE, 0, new Date())).isFalse();
+        assertThat(accountVersions.isCurrent(ALICE, Integer.MAX_VALUE - 1, new Date())).isFalse();
+    }
+    
+    @Test
+    void unknownUserIsAcceptedOnlyForTokensIssuedSinceTheLastReload() {
+        // Created after the reload: its tokens are at least as recent as the reload
+        assertThat(accountVersions.isCurrent(NEW_USER, 0, new Date())).isTrue();
+        // Not there at the reload although the token predates it: deleted in the meantime
+        assertThat(accountVersions.isCurrent(NEW_USER, 0, minutesAgo(5))).isFalse();
+    }
+    
+    @Test
+    void nothingUnknownIsAcceptedBeforeTheFirstReload() {
+        AccountVersions notLoaded = new AccountVersions(userRepository);
+        
+        assertThat(notLoaded.isCurrent(ALICE, 0, new Date())).isFalse();
+    }
+    
+    @Test
+    void reloadPicksUpChangesMadeElsewhere() {
+        stored.set(0, account(ALICE, 3));
+        stored.remove(1);
+        accountVersions.reload();
+        
+        assertThat(accountVersions.isCurrent(ALICE, 2, new Date())).isFalse();
+        assertThat(accountVersions.isCurrent(ALICE, 3, new Date())).isTrue();
+        // Deleted on another instance: tokens issued before the reload are refused
+        assertThat(accountVersions.isCurrent(BOB, 2, minutesAgo(5))).isFalse();
+    }
+    
+    @Test
+    void reloadKeepsNewerLocalChanges() {
+        // Committed here while the reload read the old version
+        accountVersions.userChanged(user(ALICE, 1));
+        accountVersions.reload();
+        
+        assertThat(accountVersions.isCurrent(ALICE, 0, new Date())).isFalse();
+        assertThat(accountVersions.isCurrent(ALICE, 1, new Date())).isTrue();
+    }
+    
+    private static Date minutesAgo(int minutes) {
+        return new Date(System.currentTimeMillis() - minutes * 60_000L);
+    }
+    
+    private static User user(long id, int accountVersion) {
+        return User.builder().id(id).accountVersion(accountVersion).build();
+    }
+    
+    private static AccountVersion account(long id, int accountVersion) {
+        return new AccountVersion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+            
+            @Override
+            public Integer getAccountVersion() {
+                return accountVersion;
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.MailDigestProperties;
+import com.ticketflow.config.MailTemplateProperties;
+import com.ticketflow.model.OutboxEmail;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The template texts must render exactly what the String.format notifications produced before them
+class EmailServiceTest {
+    
+    private EmailService emailService;
+    private User creator;
+    private User assignee;
+    private Ticket ticket;
+    
+    @BeforeEach
+    void setUp() {
+        MailTemplates mailTemplates = new MailTemplates(new MailTemplateProperties());
+        mailTemplates.load();
+        emailService = new EmailService(null, new MailDigestProperties(), mailTemplates);
+        
+        creator = User.builder().email("ann@example.com").fullName("Ann Lee").build();
+        assignee = User.builder().email("bob@example.com").fullName("Bob Stone").build();
+        // Format and placeholder syntax in values must come out verbatim
+        ticket = Ticket.builder()
+                .id(42L)
+                .subject("Printer at 100% {{ticketId}}")
+                .priority(Priority.HIGH)
+                .status(TicketStatus.OPEN)
+                .createdBy(creator)
+                .build();
+    }
+    
+    @Test
+    void ticketCreatedEmailMatchesPreviousFormat() {
+        OutboxEmail email = emailService.buildTicketCreatedEmail(ticket);
+        
+        assertThat(email.getRecipient()).isEqualTo("ann@example.com");
+        assertThat(email.getSubject()).isEqualTo("Ticket Created - #" + ticket.getId());
+        assertThat(email.getSummary()).isEqualTo(
+                String.format("Ticket #%d created: %s (%s priority)", ticket.getId(), ticket.getSubject(), ticket.getPriority()));
+        assertThat(email.getBody()).isEqualTo(String.format(
+                "Hello %s,\n\n" +
+                "Your ticket has been created successfully.\n\n" +
+                "Ticket #%d\n" +
+                "Subject: %s\n" +
+                "Priority: %s\n" +
+                "Status: %s\n\n" +
+                "We will review your ticket and get back to you soon.\n\n" +
+                "Best regards,\n" +
+                "TicketFlow Support Team",
+                creator.getFullName(),
+                ticket.getId(),
+                ticket.getSubject(),
+                ticket.getPriority(),
+                ticket.getStatus()
+        ));
+    }
+    
+    @Test
+    void ticketAssignedEmailMatchesPreviousFormat() {
+        OutboxEmail email = emailService.buildTicketAssignedEmail(ticket, assignee);
+        
+        assertThat(email.getRecipient()).isEqualTo("bob@example.com");
+        assertThat(email.getSubject()).isEqualTo("Ticket Assigned - #" + ticket.getId());
+        assertThat(email.getSummary()).isEqualTo(
+                String.format("Ticket #%d assigned to you: %s (%s priority)", ticket.getId(), ticket.getSubject(), ticket.getPriority()));
+        assertThat(email.getBody()).isEqualTo(String.format(
+                "Hello %s,\n\n" +
+                "A new ticket has been assigned to you.\n\n" +
+                "Ticket #%d\n" +
+                "Subject: %s\n" +
+                "Priority: %s\n" +
+                "Status: %s\n" +
+                "Created by: %s\n\n" +
+                "Please review and respond to the ticket.\n\n" +
+                "Best regards,\n" +
+                "TicketFlow Support Team",
+                assignee.getFullName(),
+                ticket.getId(),
+                ticket.getSubject(),
+                ticket.getPriority(),
+                ticket.getStatus(),
+                creator.getFullName()
+        ));
+    }
+    
+    @Test
+    void ticketStatusChangedEmailMatchesPreviousFormat() {
+        OutboxEmail email = emailService.buildTicketStatusChangedEmail(ticket, TicketStatus.OPEN, TicketStatus.RESOLVED);
+        
+        assertThat(email.getRecipient()).isEqualTo("ann@example.com");
+        assertThat(email.getSubject()).isEqualTo("Ticket Status Updated - #" + ticket.getId());
+        assertThat(email.getSummary()).isEqualTo(String.format("Ticket #%d %s: %s -> %s",
+                ticket.getId(), ticket.getSubject(), TicketStatus.OPEN, TicketStatus.RESOLVED));
+        assertThat(email.getBody()).isEqualTo(String.format(
+                "Hello %s,\n\n" +
+                "The status of your ticket has been updated.\n\n" +
+                "Ticket #%d\n" +
+                "Subject: %s\n" +
+                "Previous Status: %s\n" +
+                "New Status: %s\n\n" +
+                "Thank you for using TicketFlow.\n\n" +
+                "Best regards,\n" +
+                "TicketFlow Support Team",
+                creator.getFullName(),
+                ticket.getId(),
+                ticket.getSubject(),
+                TicketStatus.OPEN,
+                TicketStatus.RESOLVED
+        ));
+    }
+    
+    @Test
+    void digestMessageMatchesPreviousFormat() {
+        OutboxEmail created = emailService.buildTicketCreatedEmail(ticket);
+        OutboxEmail withoutSummary = OutboxEmail.builder().recipient("ann@example.com").subject("Ticket Closed - #42").build();
+        
+        SimpleMailMessage message = emailService.buildDigestMessage("ann@example.com", List.of(created, withoutSummary));
+        
+        assertThat(message.getTo()).containsExactly("ann@example.com");
+        assertThat(message.getSubject()).isEqualTo("TicketFlow - 2 ticket updates");
+        assertThat(message.getText()).isEqualTo(
+                "Hello,\n\n" +
+                "There have been 2 updates on your TicketFlow tickets:\n\n" +
+                "- " + created.getSummary() + "\n" +
+                "- Ticket Closed - #42\n" +
+                "\nBest regards,\nTicketFlow Support Team");
+    }
+    
+    @Test
+    void digestTemplateCanBeOverridden(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("ticket-digest.txt"), "Subject: {{updateCount}} updates\n\n{{updates}}\n");
+        MailTemplateProperties properties = new MailTemplateProperties();
+        properties.setDir(dir.toString());
+        MailTemplates mailTemplates = new MailTemplates(properties);
+        mailTemplates.load();
+        EmailService overridden = new EmailService(null, new MailDigestProperties(), mailTemplates);
+        
+        SimpleMailMessage message = overridden.buildDigestMessage("ann@example.com",
+                List.of(emailService.buildTicketCreatedEmail(ticket), emailService.buildTicketAssignedEmail(ticket, assignee)));
+        
+        assertThat(message.getSubject()).isEqualTo("2 updates");
+        assertThat(message.getText()).isEqualTo("- Ticket #42 created: Printer at 100% {{ticketId}} (HIGH priority)\n"
+                + "- Ticket #42 assigned to you: Printer at 100% {{ticketId}} (HIGH priority)");
+    }
+}
@@ -0,0 +1,269 @@
+package com.ticketflow.service;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.ticketflow.dto.BulkStatusRequest;
+import com.ticketflow.dto.CacheStatsResponse;
+import com.ticketflow.dto.CommentRequest;
+import com.ticketflow.dto.RatingRequest;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.Cache;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every write through UserService and TicketService must be visible to the next read, even when
+// the entity was cached before the write
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private CacheStatsService cacheStatsService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // Its startup load splits subjects with a PostgreSQL-only function
+    @MockBean
+    private SubjectTermIndex subjectTermIndex;
+    
+    private User creator;
+    private User admin;
+    private User agent;
+    private Ticket ticket;
+    
+    @BeforeEach
+    void createData() {
+        String run = Long.toString(System.nanoTime());
+        creator = userRepository.save(user("creator" + run, Role.USER));
+        admin = userRepository.save(user("admin" + run, Role.ADMIN));
+        agent = userRepository.save(user("agent" + run, Role.SUPPORT_AGENT));
+        ticket = ticketRepository.save(Ticket.builder()
+                .subject("Cached ticket")
+                .description("Read often, changed now and then")
+                .priority(Priority.MEDIUM)
+                .status(TicketStatus.RESOLVED)
+                .createdBy(creator)
+                .build());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void roleChangeIsSeenByEntityAndUsernameReads() {
+        warmUser(creator);
+        
+        userService.updateUserRole(creator.getId(), Role.SUPPORT_AGENT);
+        
+        assertThat(userRepository.findById(creator.getId()).orElseThrow().getRole()).isEqualTo(Role.SUPPORT_AGENT);
+        assertThat(userRepository.findByUsername(creator.getUsername()).orElseThrow().getRole()).isEqualTo(Role.SUPPORT_AGENT);
+    }
+    
+    @Test
+    void statusToggleIsSeenByEntityAndUsernameReads() {
+        warmUser(creator);
+        
+        userService.toggleUserStatus(creator.getId());
+        
+        assertThat(userRepository.findById(creator.getId()).orElseThrow().getEnabled()).isFalse();
+        assertThat(userRepository.findByUsername(creator.getUsername()).orElseThrow().getEnabled()).isFalse();
+    }
+    
+    @Test
+    void deletedUserIsGoneFromEntityAndUsernameReads() {
+        User unused = userRepository.save(user("unused" + System.nanoTime(), Role.USER));
+        warmUser(unused);
+        
+        userService.deleteUser(unused.getId());
+        
+        assertThat(userRepository.findById(unused.getId())).isEmpty();
+        assertThat(userRepository.findByUsername(unused.getUsername())).isEmpty();
+    }
+    
+    @Test
+    void statusChangeIsSeenByTheNextRead() {
+        warmTicket();
+        
+        as(admin, () -> ticketService.updateTicketStatus(ticket.getId(), TicketStatus.CLOSED));
+        
+        assertThat(readTicket(Ticket::getStatus)).isEqualTo(TicketStatus.CLOSED);
+    }
+    
+    @Test
+    void assignmentIsSeenByTheNextRead() {
+        warmTicket();
+        
+        as(admin, () -> ticketService.assignTicket(ticket.getId(), agent.getId()));
+        
+        Long assigneeId = readTicket(t -> t.getAssignedTo().getId());
+        assertThat(assigneeId).isEqualTo(agent.getId());
+    }
+    
+    @Test
+    void bulkStatusUpdateIsSeenByTheNextRead() {
+        warmTicket();
+        
+        as(admin, () -> ticketService.bulkUpdateStatus(BulkStatusRequest.builder()
+                .ticketIds(List.of(ticket.getId()))
+                .status(TicketStatus.CLOSED)
+                .build()));
+        
+        assertThat(readTicket(Ticket::getStatus)).isEqualTo(TicketStatus.CLOSED);
+    }
+    
+    @Test
+    void commentCountAndRevisionAreSeenByTheNextRead() {
+        // Counters are bumped in SQL, bypassing the cached entity
+        long revision = warmTicket().getRevision();
+        
+        as(creator, () -> ticketService.addComment(ticket.getId(), CommentRequest.builder().content("Thanks").build()));
+        
+        Ticket read = readTicket(Function.identity());
+        assertThat(read.getCommentCount()).isEqualTo(1);
+        assertThat(read.getRevision()).isEqualTo(revision + 1);
+    }
+    
+    @Test
+    void ratingIsSeenByTheNextRead() {
+        warmTicket();
+        
+        as(creator, () -> ticketService.rateTicket(ticket.getId(), RatingRequest.builder().stars(4).build()));
+        
+        Integer stars = readTicket(t -> t.getRating().getStars());
+        assertThat(stars).isEqualTo(4);
+    }
+    
+    @Test
+    void regionsAreBoundedAndReportStatistics() {
+        CaffeineConfiguration<?, ?> users = region("users").getConfiguration(CaffeineConfiguration.class);
+        assertThat(users.getMaximumSize()).hasValue(5000);
+        assertThat(users.isStatisticsEnabled()).isTrue();
+        assertThat(cacheStatsService.getCacheStats()).extracting(CacheStatsResponse::getRegion)
+                .contains("users", "tickets", "ratings");
+        
+        long hits = stats("users").getHits();
+        warmUser(creator);
+        userRepository.findById(creator.getId());
+        assertThat(stats("users").getHits()).isGreaterThan(hits);
+    }
+    
+    @Test
+    void sizeEvictionsAreReported() throws InterruptedException {
+        Cache<Object, Object> ratings = region("ratings");
+        long maximumSize = ratings.getConfiguration(CaffeineConfiguration.class).getMaximumSize().getAsLong();
+        long evictions = stats("ratings").getEvictions();
+        try {
+            for (long i = 0; i < maximumSize + 100; i++) {
+                ratings.put("filler-" + i, i);
+            }
+            // Caffeine evicts in the background
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (stats("ratings").getEvictions() < evictions + 100 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(stats("ratings").getEvictions()).isGreaterThanOrEqualTo(evictions + 100);
+        } finally {
+            ratings.clear();
+        }
+    }
+    
+    private void warmUser(User user) {
+        userRepository.findById(user.getId());
+        userRepository.findByUsername(user.getUsername());
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isTrue();
+    }
+    
+    private Ticket warmTicket() {
+        Ticket cached = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertThat(entityManagerFactory.getCache().contains(Ticket.class, ticket.getId())).isTrue();
+        return cached;
+    }
+    
+    // Reads in a transaction of its own, so associations can be followed
+    private <T> T readTicket(Function<Ticket, T> field) {
+        return transactionTemplate.execute(status -> field.apply(ticketRepository.findById(ticket.getId()).orElseThrow()));
+    }
+    
+    private void as(User principal, Supplier<?> action) {
+        // The service reads the principal built from the token: id, username and role only
+        User tokenUser = User.builder()
+                .id(principal.getId())
+                .username(principal.getUsername())
+                .role(principal.getRole())
+                .enabled(true)
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(tokenUser, null, tokenUser.getAuthorities()));
+        try {
+            action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    private Cache<Object, Object> region(String name) {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(RegionFactory.class);
+        return ((JCacheRegionFactory) regionFactory).getCacheManager().getCache(name);
+    }
+    
+    private CacheStatsResponse stats(String region) {
+        return cacheStatsService.getCacheStats().stream()
+                .filter(stats -> stats.getRegion().equals(region))
+                .findFirst()
+                .orElseThrow();
+    }
+    
+    private static User user(String username, Role role) {
+        return User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .fullName("Full " + username)
+                .role(role)
+                .enabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ticketflow.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.ticketflow.config.MailDeliveryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Delivery and throughput of the pooled connections against a local SMTP server
+@Slf4j
+class SmtpDeliveryPoolTest {
+    
+    private static final int MESSAGES = 500;
+    // Each message opens its own connection there, which is slow enough that fewer suffice
+    private static final int BASELINE_MESSAGES = 50;
+    
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+    
+    private SmtpDeliveryPool pool;
+    
+    @AfterEach
+    void stopPool() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+    
+    @Test
+    void deliversEveryMessageAcrossRecycledConnections() {
+        MailDeliveryProperties properties = new MailDeliveryProperties();
+        properties.setParallelism(4);
+        // Forces several reconnects per worker
+        properties.setMaxMessagesPerConnection(30);
+        pool = startPool(properties);
+        
+        List<CompletableFuture<Exception>> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            results.add(pool.submit(message(i)));
+        }
+        
+        assertThat(results).allSatisfy(result -> assertThat(result.join()).isNull());
+        assertThat(greenMail.getReceivedMessages()).hasSize(MESSAGES);
+    }
+    
+    @Test
+    void pooledDeliveryOutpacesOneConnectionPerMessage() {
+        JavaMailSenderImpl sender = mailSender();
+        sender.send(message(-1));
+        long started = System.nanoTime();
+        for (int i = 0; i < BASELINE_MESSAGES; i++) {
+            sender.send(message(i));
+        }
+        double perMessageRate = rate(BASELINE_MESSAGES, started);
+        
+        pool = startPool(new MailDeliveryProperties());
+        pool.submit(message(-1)).join();
+        started = System.nanoTime();
+        List<CompletableFuture<Exception>> results = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            results.add(pool.submit(message(i)));
+        }
+        results.forEach(CompletableFuture::join);
+        double pooledRate = rate(MESSAGES, started);
+        
+        log.info("SMTP throughput: {} msg/s with a connection per message, {} msg/s pooled",
+                Math.round(perMessageRate), Math.round(pooledRate));
+        assertThat(results).allSatisfy(result -> assertThat(result.join()).isNull());
+        assertThat(greenMail.getReceivedMessages()).hasSize(BASELINE_MESSAGES + MESSAGES + 2);
+        assertThat(pooledRate).isGreaterThan(perMessageRate);
+    }
+    
+    @Test
+    void submitFailsAtOnceAfterStop() {
+        pool = startPool(new MailDeliveryProperties());
+        pool.stop();
+        
+        CompletableFuture<Exception> result = pool.submit(message(0));
+        
+        assertThat(result).isDone();
+        assertThat(result.join()).isInstanceOf(IllegalStateException.class).hasMessage("SMTP delivery pool stopped");
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+    
+    private SmtpDeliveryPool startPool(MailDeliveryProperties properties) {
+        SmtpDeliveryPool deliveryPool = new SmtpDeliveryPool(mailSender(), properties);
+        deliveryPool.start();
+        return deliveryPool;
+    }
+    
+    private static JavaMailSenderImpl mailSender() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(greenMail.getSmtp().getPort());
+        return sender;
+    }
+    
+    private static SimpleMailMessage message(int i) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("noreply@ticketflow.local");
+        message.setTo("user" + i + "@example.com");
+        message.setSubject("Ticket #" + i);
+        message.setText("Body of message " + i);
+        return message;
+    }
+    
+    private static double rate(int messages, long startedNanos) {
+        return messages / ((System.nanoTime() - startedNanos) / 1e9);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ticketflow.service;
+
+import com.ticketflow.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Words from tickets another instance created reach the index through the scheduled refresh
+class SubjectTermIndexTest {
+    
+    private TicketRepository ticketRepository;
+    private SubjectTermIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        index = new SubjectTermIndex(ticketRepository);
+        ReflectionTestUtils.setField(index, "maxIndexedEdits", 2);
+        ReflectionTestUtils.setField(index, "maxExpansions", 20);
+        ReflectionTestUtils.setField(index, "refreshOverlapIds", 100L);
+        
+        when(ticketRepository.findMaxId()).thenReturn(500L);
+        when(ticketRepository.findDistinctSubjectWords()).thenReturn(List.of("printer", "offline"));
+        index.rebuild();
+    }
+    
+    @Test
+    void refreshLearnsWordsFromNewTickets() {
+        assertThat(index.expand("vpn", 1)).containsExactly("vpn");
+        when(ticketRepository.streamSubjectsAfter(400L)).thenReturn(Stream.<Object[]>of(
+                new Object[]{420L, "VPN drops on Wi-Fi"},
+                new Object[]{501L, "Mailbox quota"}));
+        
+        index.refresh();
+        
+        assertThat(index.expand("vnp", 1)).contains("vpn");
+        assertThat(index.expand("mailbx", 1)).contains("mailbox");
+        assertThat(index.expand("printr", 1)).contains("printer");
+    }
+    
+    @Test
+    void refreshRereadsTheOverlapBelowTheHighestIdSeen() {
+        when(ticketRepository.streamSubjectsAfter(400L)).thenReturn(Stream.<Object[]>of(new Object[]{650L, "Laptop battery"}));
+        index.refresh();
+        
+        when(ticketRepository.streamSubjectsAfter(550L)).thenReturn(Stream.<Object[]>of(new Object[]{600L, "Keyboard sticky"}));
+        index.refresh();
+        
+        verify(ticketRepository).streamSubjectsAfter(550L);
+        assertThat(index.expand("keybord", 1)).contains("keyboard");
+    }
+}
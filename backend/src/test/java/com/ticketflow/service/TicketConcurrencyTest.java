@@ -0,0 +1,273 @@
+package com.ticketflow.service;
+
+import com.ticketflow.dto.BulkOperationResponse;
+import com.ticketflow.dto.BulkStatusRequest;
+import com.ticketflow.dto.RatingRequest;
+import com.ticketflow.dto.RatingResponse;
+import com.ticketflow.dto.TicketResponse;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.RatingRepository;
+import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many writers against one ticket: every successful call bumps the version exactly once, and
+// every failed one either lost a real conflict or was refused, without leaving a change behind
+@SpringBootTest
+@ActiveProfiles("test")
+class TicketConcurrencyTest {
+    
+    private static final int THREADS = 6;
+    private static final int CALLS_PER_THREAD = 20;
+    // One per call, so every successful assignment really changes the assignee
+    private static final int AGENTS = THREADS * CALLS_PER_THREAD;
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RatingRepository ratingRepository;
+    
+    @Autowired
+    private TicketStatsService ticketStatsService;
+    
+    // Its startup load splits subjects with a PostgreSQL-only function
+    @MockBean
+    private SubjectTermIndex subjectTermIndex;
+    
+    private User creator;
+    private User admin;
+    private final List<User> agents = new ArrayList<>();
+    private final AtomicInteger nextAgent = new AtomicInteger();
+    private Ticket ticket;
+    
+    private final List<TicketResponse> statusChanges = Collections.synchronizedList(new ArrayList<>());
+    private final List<TicketResponse> assignments = Collections.synchronizedList(new ArrayList<>());
+    private final List<RatingResponse> ratings = Collections.synchronizedList(new ArrayList<>());
+    private final List<RuntimeException> failures = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    void createTicket() {
+        String run = Long.toString(System.nanoTime());
+        creator = userRepository.save(user("creator" + run, Role.USER));
+        admin = userRepository.save(user("admin" + run, Role.ADMIN));
+        for (int i = 0; i < AGENTS; i++) {
+            agents.add(userRepository.save(user("agent" + i + "-" + run, Role.SUPPORT_AGENT)));
+        }
+        // Resolved, so it can be rated while its status moves between RESOLVED and CLOSED
+        ticket = ticketRepository.save(Ticket.builder()
+                .subject("Contended ticket")
+                .description("Changed by many writers at once")
+                .priority(Priority.HIGH)
+                .status(TicketStatus.RESOLVED)
+                .resolvedAt(LocalDateTime.now())
+                .createdBy(creator)
+                .build());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void finalTicketMatchesTheSuccessfulCalls() throws Exception {
+        long initialVersion = ticketRepository.findById(ticket.getId()).orElseThrow().getVersion();
+        
+        runWriters(random -> {
+            int choice = random.nextInt(10);
+            if (choice < 5) {
+                TicketStatus status = random.nextBoolean() ? TicketStatus.RESOLVED : TicketStatus.CLOSED;
+                call(admin, () -> statusChanges.add(ticketService.updateTicketStatus(ticket.getId(), status)));
+            } else if (choice < 9) {
+                Long assigneeId = agents.get(nextAgent.getAndIncrement()).getId();
+                call(admin, () -> assignments.add(ticketService.assignTicket(ticket.getId(), assigneeId)));
+            } else {
+                RatingRequest request = RatingRequest.builder().stars(random.nextInt(5) + 1).build();
+                call(creator, () -> ratings.add(ticketService.rateTicket(ticket.getId(), request)));
+            }
+        });
+        
+        Ticket result = ticketRepository.findById(ticket.getId()).orElseThrow();
+        
+        // Every failure lost a real conflict or found the ticket already rated
+        assertThat(failures).allSatisfy(failure -> assertThat(failure instanceof OptimisticLockingFailureException
+                || "Ticket has already been rated".equals(failure.getMessage())).as(failure.toString()).isTrue());
+        assertThat(statusChanges.size() + assignments.size() + ratings.size() + failures.size())
+                .isEqualTo(THREADS * CALLS_PER_THREAD);
+        assertThat(statusChanges).isNotEmpty();
+        assertThat(assignments).isNotEmpty();
+        
+        // One bump per successful status change or assignment; the rating is a child row and leaves it alone
+        assertThat(result.getVersion()).isEqualTo(initialVersion + statusChanges.size() + assignments.size());
+        
+        // Exactly one rating got through, and it is the stored one; concurrent ones hit the unique key
+        assertThat(ratings).hasSize(1);
+        assertThat(ratingRepository.findByTicketId(ticket.getId()))
+                .map(rating -> rating.getStars())
+                .isEqualTo(ratings.stream().findFirst().map(RatingResponse::getStars));
+        
+        // Status changes commit one after another, each stamping a later time than the one it replaced,
+        // so the latest stamp belongs to the change that stuck
+        TicketResponse lastStatusChange = statusChanges.stream()
+                .max(Comparator.comparing(TicketConcurrencyTest::statusChangedAt))
+                .orElseThrow();
+        assertThat(result.getStatus()).isEqualTo(lastStatusChange.getStatus());
+        assertThat(assignments).extracting(response -> response.getAssignedTo().getId())
+                .contains(result.getAssignedTo().getId());
+    }
+    
+    @Test
+    void concurrentRatingsStoreExactlyOne() throws Exception {
+        long initialVersion = ticketRepository.findById(ticket.getId()).orElseThrow().getVersion();
+        
+        runWriters(random -> {
+            RatingRequest request = RatingRequest.builder().stars(random.nextInt(5) + 1).build();
+            call(creator, () -> ratings.add(ticketService.rateTicket(ticket.getId(), request)));
+        });
+        
+        // The losers either saw the stored rating or were refused by the unique key, as a conflict
+        assertThat(ratings).hasSize(1);
+        assertThat(failures).hasSize(THREADS * CALLS_PER_THREAD - 1)
+                .extracting(RuntimeException::getMessage)
+                .containsOnly("Ticket has already been rated");
+        assertThat(ratingRepository.findByTicketId(ticket.getId())).get()
+                .extracting(rating -> rating.getStars())
+                .isEqualTo(ratings.get(0).getStars());
+        assertThat(ticketRepository.findById(ticket.getId()).orElseThrow().getVersion()).isEqualTo(initialVersion);
+    }
+    
+    @Test
+    void bulkAndSingleStatusChangesKeepTheCountersExact() throws Exception {
+        long initialVersion = ticketRepository.findById(ticket.getId()).orElseThrow().getVersion();
+        Map<TicketStatus, Long> countsBefore = ticketStatsService.getStats().getByStatus();
+        List<BulkOperationResponse> bulkChanges = Collections.synchronizedList(new ArrayList<>());
+        
+        runWriters(random -> {
+            TicketStatus status = random.nextBoolean() ? TicketStatus.RESOLVED : TicketStatus.CLOSED;
+            if (random.nextBoolean()) {
+                call(admin, () -> statusChanges.add(ticketService.updateTicketStatus(ticket.getId(), status)));
+            } else {
+                BulkStatusRequest request = BulkStatusRequest.builder().ticketIds(List.of(ticket.getId())).status(status).build();
+                call(admin, () -> bulkChanges.add(ticketService.bulkUpdateStatus(request)));
+            }
+        });
+        
+        Ticket result = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertThat(failures).allSatisfy(failure -> assertThat(failure).isInstanceOf(OptimisticLockingFailureException.class));
+        assertThat(bulkChanges).isNotEmpty();
+        
+        // A bulk change works from the state it locked, so it never overwrites a change it did not see
+        int bulkUpdates = bulkChanges.stream().mapToInt(BulkOperationResponse::getUpdated).sum();
+        assertThat(result.getVersion()).isEqualTo(initialVersion + statusChanges.size() + bulkUpdates);
+        
+        // Each transition was counted from the status it really replaced: the ticket moved from
+        // RESOLVED to its final status, and nothing else changed
+        Map<TicketStatus, Long> expected = new EnumMap<>(countsBefore);
+        expected.merge(TicketStatus.RESOLVED, -1L, Long::sum);
+        expected.merge(result.getStatus(), 1L, Long::sum);
+        expected.values().removeIf(count -> count == 0);
+        Map<TicketStatus, Long> countsAfter = new EnumMap<>(ticketStatsService.getStats().getByStatus());
+        countsAfter.values().removeIf(count -> count == 0);
+        assertThat(countsAfter).isEqualTo(expected);
+    }
+    
+    // Starts every writer at once and waits for all of them
+    private void runWriters(Writer writer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> running = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Random random = new Random(thread);
+                running.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        writer.call(random);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : running) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void call(User principal, Runnable action) {
+        // The service reads the principal built from the token: id, username and role only
+        User tokenUser = User.builder()
+                .id(principal.getId())
+                .username(principal.getUsername())
+                .role(principal.getRole())
+                .enabled(true)
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(tokenUser, null, tokenUser.getAuthorities()));
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            failures.add(e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+    
+    private static LocalDateTime statusChangedAt(TicketResponse response) {
+        return response.getStatus() == TicketStatus.RESOLVED ? response.getResolvedAt() : response.getClosedAt();
+    }
+    
+    private static User user(String username, Role role) {
+        return User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .fullName("Full " + username)
+                .role(role)
+                .enabled(true)
+                .build();
+    }
+    
+    private interface Writer {
+        void call(Random random);
+    }
+}
@@ -0,0 +1,222 @@
+package com.ticketflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketflow.config.TicketEventsProperties;
+import com.ticketflow.controller.TicketController;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.UserRepository;
+import com.ticketflow.security.AccountVersions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Replay and resync of the event stream for clients reconnecting with Last-Event-ID, and closing
+// the streams of accounts that changed
+class TicketEventBroadcasterTest {
+    
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+    private static final long OWNER = 10L;
+    private static final long OTHER_USER = 11L;
+    
+    private AccountVersions accountVersions;
+    private TicketEventBroadcaster broadcaster;
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        TicketEventsProperties properties = new TicketEventsProperties();
+        properties.setReplaySize(5);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findAllAccountVersions()).thenReturn(List.of());
+        accountVersions = new AccountVersions(userRepository);
+        accountVersions.reload();
+        broadcaster = new TicketEventBroadcaster(properties, new ObjectMapper().findAndRegisterModules(), accountVersions);
+        broadcaster.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(new TicketController(null, null, broadcaster)).build();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void replaysMissedEventsThenStreamsLiveOnes() throws Exception {
+        publish(1, 2, 3, 4);
+        
+        MockHttpServletResponse response = subscribe(agent(), 2L);
+        publish(5);
+        
+        assertThat(awaitEventIds(response, ids -> ids.contains(5L))).containsExactly(3L, 4L, 5L);
+        assertThat(response.getContentAsString()).doesNotContain("event:resync");
+    }
+    
+    @Test
+    void replaysOnlyTheUsersOwnTickets() throws Exception {
+        publish(OWNER, 1);
+        publish(OTHER_USER, 2);
+        publish(OWNER, 3);
+        
+        MockHttpServletResponse response = subscribe(user(OWNER), 0L);
+        publish(OTHER_USER, 4);
+        publish(OWNER, 5);
+        
+        assertThat(awaitEventIds(response, ids -> ids.contains(5L))).containsExactly(1L, 3L, 5L);
+    }
+    
+    @Test
+    void upToDateClientGetsNoReplay() throws Exception {
+        publish(1, 2, 3);
+        
+        MockHttpServletResponse response = subscribe(agent(), 3L);
+        publish(4);
+        
+        assertThat(awaitEventIds(response, ids -> ids.contains(4L))).containsExactly(4L);
+        assertThat(response.getContentAsString()).doesNotContain("event:resync");
+    }
+    
+    @Test
+    void clientBehindTheReplayBufferIsToldToResync() throws Exception {
+        // Only 4..8 are still buffered
+        publish(1, 2, 3, 4, 5, 6, 7, 8);
+        
+        MockHttpServletResponse response = subscribe(agent(), 2L);
+        
+        awaitContent(response, "event:resync");
+        assertThat(eventIds(response)).isEmpty();
+    }
+    
+    @Test
+    void lastBufferedEventIsNotAGap() throws Exception {
+        // 4..8 are buffered; a client that saw 3 misses nothing that was dropped
+        publish(1, 2, 3, 4, 5, 6, 7, 8);
+        
+        MockHttpServletResponse response = subscribe(agent(), 3L);
+        
+        assertThat(awaitEventIds(response, ids -> ids.contains(8L))).containsExactly(4L, 5L, 6L, 7L, 8L);
+        assertThat(response.getContentAsString()).doesNotContain("event:resync");
+    }
+    
+    @Test
+    void idFromBeforeARestartIsToldToResync() throws Exception {
+        // Ids restarted with the server; the client saw more events than this instance has published
+        publish(1, 2);
+        
+        MockHttpServletResponse response = subscribe(agent(), 40L);
+        
+        awaitContent(response, "event:resync");
+        assertThat(eventIds(response)).isEmpty();
+    }
+    
+    @Test
+    void changedAccountsStreamIsClosed() throws Exception {
+        User owner = user(OWNER);
+        MvcResult result = open(owner, null);
+        publish(OWNER, 1);
+        assertThat(awaitEventIds(result.getResponse(), ids -> ids.contains(1L))).containsExactly(1L);
+        
+        // Say an admin made them an agent: the stream must not keep the user's narrower view, nor its own
+        owner.setAccountVersion(1);
+        accountVersions.userChanged(owner);
+        publish(OWNER, 2);
+        
+        result.getAsyncResult(5000);
+        assertThat(eventIds(result.getResponse())).containsExactly(1L);
+    }
+    
+    @Test
+    void deletedUsersStreamIsClosedByTheHeartbeat() throws Exception {
+        MvcResult result = open(agent(), null);
+        
+        accountVersions.userDeleted(agent().getId());
+        broadcaster.heartbeat();
+        
+        result.getAsyncResult(5000);
+    }
+    
+    private MockHttpServletResponse subscribe(User principal, Long lastEventId) throws Exception {
+        return open(principal, lastEventId).getResponse();
+    }
+    
+    private MvcResult open(User principal, Long lastEventId) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        MockHttpServletRequestBuilder request = get("/api/tickets/events");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+    
+    private void publish(long... ids) {
+        for (long id : ids) {
+            publish(OWNER, id);
+        }
+    }
+    
+    private void publish(long createdById, long id) {
+        broadcaster.onEvent(TicketEvent.builder()
+                .id(id)
+                .type(TicketEvent.Type.STATUS_CHANGED)
+                .ticketId(100 + id)
+                .createdById(createdById)
+                .status(TicketStatus.IN_PROGRESS)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+    
+    // Frames are written by the sender pool, so wait until the expected ones arrived
+    private List<Long> awaitEventIds(MockHttpServletResponse response, Predicate<List<Long>> done) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<Long> ids = eventIds(response);
+        while (!done.test(ids) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ids = eventIds(response);
+        }
+        return ids;
+    }
+    
+    private void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+    }
+    
+    private static List<Long> eventIds(MockHttpServletResponse response) throws Exception {
+        Matcher matcher = EVENT_ID.matcher(response.getContentAsString());
+        return matcher.results().map(match -> Long.parseLong(match.group(1))).toList();
+    }
+    
+    private static User agent() {
+        return User.builder().id(1L).username("agent").role(Role.SUPPORT_AGENT).enabled(true).build();
+    }
+    
+    private static User user(long id) {
+        return User.builder().id(id).username("user" + id).role(Role.USER).enabled(true).build();
+    }
+}
@@ -0,0 +1,265 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.EventBusProperties;
+import com.ticketflow.dto.EventBusStatsResponse;
+import com.ticketflow.dto.TicketEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many publishers against a small ring, so they wrap it and wait on the slowest consumer
+class TicketEventBusTest {
+    
+    private static final int CAPACITY = 16;
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 1000;
+    private static final int TOTAL = PRODUCERS * EVENTS_PER_PRODUCER;
+    
+    private TicketEventBus bus;
+    private ExecutorService producers;
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (producers != null) {
+            producers.shutdownNow();
+        }
+        if (bus != null) {
+            bus.stop();
+        }
+    }
+    
+    @ParameterizedTest
+    @EnumSource(EventBusProperties.WaitStrategy.class)
+    void everyConsumerSeesEveryEventOnceInSequenceOrder(EventBusProperties.WaitStrategy waitStrategy) throws Exception {
+        RecordingConsumer fast = new RecordingConsumer("fast", 0);
+        RecordingConsumer slow = new RecordingConsumer("slow", 50);
+        bus = startBus(waitStrategy, fast, slow);
+        
+        runProducers(producer -> {
+            for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                bus.publish(event(producer, i));
+            }
+        });
+        
+        for (RecordingConsumer consumer : List.of(fast, slow)) {
+            List<TicketEvent> events = consumer.await(TOTAL);
+            assertThat(events).extracting(TicketEvent::getId)
+                    .containsExactlyElementsOf(sequence(1, TOTAL));
+            // Each publisher's events keep the order they were published in
+            Map<Long, Long> lastPerProducer = new HashMap<>();
+            for (TicketEvent event : events) {
+                Long previous = lastPerProducer.put(event.getTicketId(), event.getActorId());
+                assertThat(event.getActorId()).isEqualTo(previous == null ? 0 : previous + 1);
+            }
+        }
+        
+        awaitProcessed(TOTAL);
+        EventBusStatsResponse stats = bus.getStats();
+        assertThat(stats.getCapacity()).isEqualTo(CAPACITY);
+        assertThat(stats.getPublished()).isEqualTo(TOTAL);
+        assertThat(stats.getConsumers()).allSatisfy(consumer -> {
+            assertThat(consumer.getProcessed()).isEqualTo(TOTAL);
+            assertThat(consumer.getLag()).isZero();
+        });
+    }
+    
+    @Test
+    void transactionEventsGetConsecutiveIdsAfterCommit() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer("recording", 0);
+        bus = startBus(EventBusProperties.WaitStrategy.SLEEPING, consumer);
+        int transactions = EVENTS_PER_PRODUCER / 4;
+        
+        runProducers(producer -> {
+            for (int i = 0; i < transactions; i++) {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    for (int j = 0; j < 4; j++) {
+                        bus.publish(event(producer, i * 4 + j));
+                    }
+                    List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                    synchronizations.forEach(TransactionSynchronization::afterCommit);
+                    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }
+        });
+        
+        List<TicketEvent> events = consumer.await(PRODUCERS * transactions * 4);
+        for (int i = 0; i < events.size(); i += 4) {
+            // A transaction's four events are one contiguous range, never interleaved with another's
+            List<TicketEvent> batch = events.subList(i, i + 4);
+            assertThat(batch).extracting(TicketEvent::getTicketId).containsOnly(batch.get(0).getTicketId());
+            assertThat(batch.get(0).getActorId() % 4).isZero();
+        }
+    }
+    
+    @Test
+    void rolledBackTransactionPublishesNothing() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer("recording", 0);
+        bus = startBus(EventBusProperties.WaitStrategy.BLOCKING, consumer);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish(event(1, 0));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        bus.publish(event(2, 0));
+        
+        assertThat(consumer.await(1)).extracting(TicketEvent::getTicketId).containsExactly(2L);
+        assertThat(bus.getStats().getPublished()).isEqualTo(1);
+    }
+    
+    @Test
+    void failingConsumerKeepsConsuming() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer("failing", 0) {
+            @Override
+            public void onEvent(TicketEvent event) {
+                super.onEvent(event);
+                if (event.getActorId() % 2 == 0) {
+                    throw new IllegalStateException("Consumer failure");
+                }
+            }
+        };
+        bus = startBus(EventBusProperties.WaitStrategy.SLEEPING, consumer);
+        
+        for (int i = 0; i < 3 * CAPACITY; i++) {
+            bus.publish(event(1, i));
+        }
+        
+        assertThat(consumer.await(3 * CAPACITY)).hasSize(3 * CAPACITY);
+        awaitProcessed(3 * CAPACITY);
+        assertThat(bus.getStats().getConsumers().get(0).getErrors()).isEqualTo(3 * CAPACITY / 2);
+    }
+    
+    @Test
+    void stopDeliversWhatWasAlreadyPublished() throws Exception {
+        RecordingConsumer slow = new RecordingConsumer("slow", 1);
+        bus = startBus(EventBusProperties.WaitStrategy.BLOCKING, slow);
+        
+        for (int i = 0; i < CAPACITY; i++) {
+            bus.publish(event(1, i));
+        }
+        bus.stop();
+        
+        assertThat(slow.events).extracting(TicketEvent::getId).containsExactlyElementsOf(sequence(1, CAPACITY));
+        bus = null;
+    }
+    
+    private TicketEventBus startBus(EventBusProperties.WaitStrategy waitStrategy, TicketEventConsumer... consumers) {
+        EventBusProperties properties = new EventBusProperties();
+        properties.setCapacity(CAPACITY);
+        properties.setWaitStrategy(waitStrategy);
+        TicketEventBus eventBus = new TicketEventBus(properties, List.of(consumers));
+        eventBus.start();
+        return eventBus;
+    }
+    
+    // Workers count errors and advance their position after onEvent returns
+    private void awaitProcessed(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bus.getStats().getConsumers().stream().anyMatch(consumer -> consumer.getProcessed() < count)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+    
+    // Starts every producer at once and waits for all of them
+    private void runProducers(ProducerTask task) throws Exception {
+        producers = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            long id = producer;
+            running.add(producers.submit(() -> {
+                start.await();
+                task.run(id);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : running) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+    
+    // ticketId identifies the publisher and actorId numbers its events
+    private static TicketEvent event(long producer, long index) {
+        return TicketEvent.builder()
+                .type(TicketEvent.Type.CREATED)
+                .ticketId(producer)
+                .createdById(1L)
+                .actorId(index)
+                .build();
+    }
+    
+    private static List<Long> sequence(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id <= to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+    
+    private interface ProducerTask {
+        void run(long producer) throws Exception;
+    }
+    
+    private static class RecordingConsumer implements TicketEventConsumer {
+        private final String name;
+        // Sleeps 1 ms every this many events; 0 never
+        private final int pauseEvery;
+        private final List<TicketEvent> events = Collections.synchronizedList(new ArrayList<>());
+        
+        private RecordingConsumer(String name, int pauseEvery) {
+            this.name = name;
+            this.pauseEvery = pauseEvery;
+        }
+        
+        @Override
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public void onEvent(TicketEvent event) {
+            events.add(event);
+            if (pauseEvery > 0 && events.size() % pauseEvery == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        
+        private List<TicketEvent> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.HistoryLogProperties;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.dto.TicketHistoryEntry;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketHistoryLogTest {
+    
+    private static final int RECORD_SIZE = 64;
+    // Four records per segment, so a few events span several files
+    private static final int RECORDS_PER_SEGMENT = 4;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 9, 30).truncatedTo(ChronoUnit.MILLIS);
+    
+    @TempDir
+    Path dir;
+    
+    private long nextEventId;
+    
+    @Test
+    void writesFixedSizeRecordsInTheDocumentedLayout() throws IOException {
+        TicketHistoryLog historyLog = open();
+        historyLog.onEvent(event(7L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null));
+        TicketEvent statusChange = event(7L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, 3L, null);
+        statusChange.setPreviousStatus(TicketStatus.OPEN);
+        historyLog.onEvent(statusChange);
+        historyLog.flush();
+        
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(dir.resolve("history-00000000000000000000.log")));
+        assertThat(file.capacity()).isEqualTo(RECORDS_PER_SEGMENT * RECORD_SIZE);
+        
+        int second = RECORD_SIZE;
+        assertThat(file.getLong(second)).isEqualTo(2);
+        assertThat(file.getLong(second + 8)).isEqualTo(7);
+        assertThat(file.getLong(second + 16)).isEqualTo(START.plusMinutes(2).toInstant(ZoneOffset.UTC).toEpochMilli());
+        // Points back at the ticket's first record
+        assertThat(file.getLong(second + 24)).isZero();
+        assertThat(file.getLong(second + 32)).isEqualTo(100);
+        assertThat(file.getLong(second + 40)).isEqualTo(3);
+        assertThat(file.getLong(second + 48)).isEqualTo(-1);
+        assertThat(file.get(second + 56)).isEqualTo((byte) TicketEvent.Type.STATUS_CHANGED.ordinal());
+        assertThat(file.get(second + 57)).isEqualTo((byte) TicketStatus.IN_PROGRESS.ordinal());
+        assertThat(file.get(second + 58)).isEqualTo((byte) TicketStatus.OPEN.ordinal());
+        assertThat(file.get(second + 59)).isEqualTo((byte) Priority.HIGH.ordinal());
+        assertThat(file.get(second + 60)).isEqualTo((byte) -1);
+        assertThat(file.get(second + 63)).isEqualTo((byte) 1);
+        // The first record has no predecessor, and the slot after the last one is not committed
+        assertThat(file.getLong(24)).isEqualTo(-1);
+        assertThat(file.get(2 * RECORD_SIZE + 63)).isZero();
+    }
+    
+    @Test
+    void readsEachTicketsHistoryAcrossSegments() throws IOException {
+        TicketHistoryLog historyLog = open();
+        // Interleaved, ten records over three segments, each built just before it is appended so times rise
+        TicketEvent firstCreated = event(1L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null);
+        historyLog.onEvent(firstCreated);
+        TicketEvent secondCreated = event(2L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null);
+        historyLog.onEvent(secondCreated);
+        for (int i = 0; i < 5; i++) {
+            historyLog.onEvent(event(3L, TicketEvent.Type.COMMENT_ADDED, TicketStatus.OPEN, null, null));
+        }
+        TicketEvent firstAssigned = event(1L, TicketEvent.Type.ASSIGNED, TicketStatus.OPEN, 5L, null);
+        historyLog.onEvent(firstAssigned);
+        TicketEvent secondClosed = event(2L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.CLOSED, null, null);
+        historyLog.onEvent(secondClosed);
+        TicketEvent firstRated = event(1L, TicketEvent.Type.RATED, TicketStatus.RESOLVED, 5L, 4);
+        historyLog.onEvent(firstRated);
+        List<TicketEvent> first = List.of(firstCreated, firstAssigned, firstRated);
+        List<TicketEvent> second = List.of(secondCreated, secondClosed);
+        
+        assertThat(historyLog.size()).isEqualTo(10);
+        assertThat(segmentFiles()).containsExactly(
+                "history-00000000000000000000.log", "history-00000000000000000004.log", "history-00000000000000000008.log");
+        assertHistory(historyLog.read(1L), first);
+        assertHistory(historyLog.read(2L), second);
+        assertThat(historyLog.read(3L)).hasSize(5);
+        assertThat(historyLog.read(99L)).isEmpty();
+    }
+    
+    @Test
+    void reindexesOnRestartAndKeepsAppendingToTheLastSegment() throws IOException {
+        TicketHistoryLog before = open();
+        List<TicketEvent> events = List.of(
+                event(1L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null),
+                event(2L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null),
+                event(1L, TicketEvent.Type.ASSIGNED, TicketStatus.OPEN, 5L, null),
+                event(1L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, 5L, null),
+                event(2L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, null, null),
+                event(1L, TicketEvent.Type.COMMENT_ADDED, TicketStatus.IN_PROGRESS, 5L, null));
+        events.forEach(before::onEvent);
+        before.flush();
+        
+        TicketHistoryLog after = open();
+        assertThat(after.size()).isEqualTo(6);
+        assertHistory(after.read(1L), List.of(events.get(0), events.get(2), events.get(3), events.get(5)));
+        assertHistory(after.read(2L), List.of(events.get(1), events.get(4)));
+        
+        // Position 6 is free in the second segment, so no new file; the ticket's chain continues
+        TicketEvent resolved = event(2L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.RESOLVED, null, null);
+        after.onEvent(resolved);
+        assertThat(segmentFiles()).hasSize(2);
+        assertHistory(after.read(2L), List.of(events.get(1), events.get(4), resolved));
+    }
+    
+    @Test
+    void restartStopsAtTheFirstUncommittedRecord() throws IOException {
+        TicketHistoryLog before = open();
+        for (int i = 0; i < 3; i++) {
+            before.onEvent(event(1L, TicketEvent.Type.COMMENT_ADDED, TicketStatus.OPEN, null, null));
+        }
+        before.flush();
+        
+        // A record cut short by a crash: fields written, commit byte not
+        Path segment = dir.resolve("history-00000000000000000000.log");
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[2 * RECORD_SIZE + 63] = 0;
+        Files.write(segment, bytes);
+        
+        TicketHistoryLog after = open();
+        assertThat(after.size()).isEqualTo(2);
+        assertThat(after.read(1L)).extracting(TicketHistoryEntry::getEventId).containsExactly(0L, 1L);
+        
+        // The torn slot is reused
+        after.onEvent(event(1L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, null, null));
+        assertThat(after.size()).isEqualTo(3);
+        assertThat(after.read(1L)).extracting(TicketHistoryEntry::getEventId).containsExactly(0L, 1L, 2L);
+    }
+    
+    @Test
+    void recordTimesNeverGoBackwards() throws IOException {
+        TicketHistoryLog before = open();
+        TicketEvent created = event(1L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null);
+        created.setOccurredAt(START.plusMinutes(5));
+        // Stamped before the previous event, then numbered after it
+        TicketEvent assigned = event(1L, TicketEvent.Type.ASSIGNED, TicketStatus.OPEN, 5L, null);
+        assigned.setOccurredAt(START.plusMinutes(3));
+        TicketEvent started = event(1L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, 5L, null);
+        started.setOccurredAt(START.plusMinutes(6));
+        List.of(created, assigned, started).forEach(before::onEvent);
+        before.flush();
+        
+        // The clock stepped back across a restart
+        TicketHistoryLog after = open();
+        TicketEvent commented = event(1L, TicketEvent.Type.COMMENT_ADDED, TicketStatus.IN_PROGRESS, 5L, null);
+        commented.setOccurredAt(START.plusMinutes(4));
+        after.onEvent(commented);
+        
+        assertThat(after.read(1L)).extracting(TicketHistoryEntry::getOccurredAt).containsExactly(
+                START.plusMinutes(5), START.plusMinutes(5), START.plusMinutes(6), START.plusMinutes(6));
+    }
+    
+    @Test
+    void eventIdsStayUniqueWhenTheBusRestartsItsSequence() throws IOException {
+        TicketHistoryLog before = open();
+        before.onEvent(event(1L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null));
+        before.onEvent(event(1L, TicketEvent.Type.ASSIGNED, TicketStatus.OPEN, 5L, null));
+        before.flush();
+        
+        // The next run numbers its events from 1 again
+        nextEventId = 0;
+        TicketHistoryLog after = open();
+        after.onEvent(event(1L, TicketEvent.Type.STATUS_CHANGED, TicketStatus.IN_PROGRESS, 5L, null));
+        
+        assertThat(after.read(1L)).extracting(TicketHistoryEntry::getEventId).containsExactly(0L, 1L, 2L);
+    }
+    
+    @Test
+    void retiredSegmentsAreDeletedAndTheirTicketsForgotten() throws IOException {
+        TicketHistoryLog historyLog = open();
+        historyLog.onEvent(event(1L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null));
+        for (int i = 0; i < 7; i++) {
+            historyLog.onEvent(event(2L, TicketEvent.Type.COMMENT_ADDED, TicketStatus.OPEN, null, null));
+        }
+        TicketEvent assigned = event(1L, TicketEvent.Type.ASSIGNED, TicketStatus.OPEN, 5L, null);
+        historyLog.onEvent(assigned);
+        historyLog.onEvent(event(3L, TicketEvent.Type.CREATED, TicketStatus.OPEN, null, null));
+        
+        // Only whole segments go, and never the one being written
+        historyLog.retireBefore(6);
+        assertThat(segmentFiles()).containsExactly("history-00000000000000000004.log", "history-00000000000000000008.log");
+        historyLog.retireBefore(100);
+        assertThat(segmentFiles()).containsExactly("history-00000000000000000008.log");
+        assertThat(historyLog.firstPosition()).isEqualTo(8);
+        
+        // The ticket keeps the part of its history that is left; one with nothing left is gone
+        assertHistory(historyLog.read(1L), List.of(assigned));
+        assertThat(historyLog.read(2L)).isEmpty();
+        assertThatThrownBy(() -> historyLog.cursor(0).next()).hasMessage("Ticket history that old is no longer kept");
+        
+        TicketHistoryLog restarted = open();
+        assertThat(restarted.firstPosition()).isEqualTo(8);
+        assertThat(restarted.size()).isEqualTo(10);
+        assertHistory(restarted.read(1L), List.of(assigned));
+    }
+    
+    private TicketHistoryLog open() throws IOException {
+        HistoryLogProperties properties = new HistoryLogProperties();
+        properties.setDir(dir.toString());
+        properties.setSegmentSize(DataSize.ofBytes(RECORDS_PER_SEGMENT * RECORD_SIZE));
+        TicketHistoryLog historyLog = new TicketHistoryLog(properties);
+        historyLog.open();
+        return historyLog;
+    }
+    
+    private TicketEvent event(Long ticketId, TicketEvent.Type type, TicketStatus status, Long assignedToId, Integer stars) {
+        long id = ++nextEventId;
+        return TicketEvent.builder()
+                .id(id)
+                .type(type)
+                .ticketId(ticketId)
+                .createdById(100L)
+                .actorId(100L)
+                .status(status)
+                .priority(Priority.HIGH)
+                .assignedToId(assignedToId)
+                .stars(stars)
+                .occurredAt(START.plusMinutes(id))
+                .build();
+    }
+    
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+    
+    private static void assertHistory(List<TicketHistoryEntry> entries, List<TicketEvent> events) {
+        assertThat(entries).hasSameSizeAs(events);
+        for (int i = 0; i < events.size(); i++) {
+            TicketEvent event = events.get(i);
+            TicketHistoryEntry entry = entries.get(i);
+            assertThat(entry.getType()).isEqualTo(event.getType());
+            assertThat(entry.getOccurredAt()).isEqualTo(event.getOccurredAt());
+            assertThat(entry.getActorId()).isEqualTo(event.getActorId());
+            assertThat(entry.getStatus()).isEqualTo(event.getStatus());
+            assertThat(entry.getPriority()).isEqualTo(event.getPriority());
+            assertThat(entry.getAssignedToId()).isEqualTo(event.getAssignedToId());
+            assertThat(entry.getPreviousStatus()).isEqualTo(event.getPreviousStatus());
+            assertThat(entry.getPreviousAssigneeId()).isEqualTo(event.getPreviousAssigneeId());
+            assertThat(entry.getStars()).isEqualTo(event.getStars());
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.ticketflow.service;
+
+import com.ticketflow.config.HistoryLogProperties;
+import com.ticketflow.dto.StatusCountsResponse;
+import com.ticketflow.dto.TicketEvent;
+import com.ticketflow.dto.TicketStateResponse;
+import com.ticketflow.model.Priority;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Answers starting from a snapshot must equal those of replaying the whole log from the start
+class TicketHistoryReplayTest {
+    
+    private static final int TICKETS = 40;
+    private static final int EVENTS = 2000;
+    private static final int SNAPSHOT_INTERVAL = 300;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 5, 8, 0);
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final TicketEvent.Type[] CHANGES = {
+            TicketEvent.Type.STATUS_CHANGED, TicketEvent.Type.ASSIGNED, TicketEvent.Type.COMMENT_ADDED, TicketEvent.Type.RATED};
+    
+    @TempDir
+    Path snapshotDir;
+    
+    @TempDir
+    Path replayDir;
+    
+    @TempDir
+    Path seedDir;
+    
+    private TicketHistoryLog snapshotLog;
+    private TicketHistoryReplay withSnapshots;
+    private TicketHistoryReplay withoutSnapshots;
+    
+    @BeforeEach
+    void recordHistory() throws IOException {
+        snapshotLog = openLog(snapshotDir);
+        TicketHistoryLog replayLog = openLog(replayDir);
+        withSnapshots = openReplay(snapshotLog, snapshotDir, SNAPSHOT_INTERVAL);
+        withoutSnapshots = openReplay(replayLog, replayDir, Long.MAX_VALUE);
+        
+        for (TicketEvent event : history()) {
+            snapshotLog.onEvent(event);
+            replayLog.onEvent(event);
+            withSnapshots.snapshot();
+            withoutSnapshots.snapshot();
+        }
+        snapshotLog.flush();
+    }
+    
+    @Test
+    void snapshotsAreTakenEverySnapshotInterval() throws IOException {
+        assertThat(snapshotFiles(snapshotDir)).containsExactly(
+                "snapshot-00000000000000000300.bin", "snapshot-00000000000000000600.bin",
+                "snapshot-00000000000000000900.bin", "snapshot-00000000000000001200.bin",
+                "snapshot-00000000000000001500.bin", "snapshot-00000000000000001800.bin");
+        assertThat(snapshotFiles(replayDir)).isEmpty();
+    }
+    
+    @Test
+    void ticketStateMatchesFullReplay() {
+        assertSameTicketStates(withSnapshots, withoutSnapshots);
+    }
+    
+    @Test
+    void statusCountsMatchFullReplay() {
+        assertSameStatusCounts(withSnapshots, withoutSnapshots);
+    }
+    
+    @Test
+    void snapshotsLoadedOnRestartGiveTheSameAnswers() throws IOException {
+        TicketHistoryReplay restarted = openReplay(openLog(snapshotDir), snapshotDir, SNAPSHOT_INTERVAL);
+        
+        assertSameTicketStates(restarted, withoutSnapshots);
+        assertSameStatusCounts(restarted, withoutSnapshots);
+    }
+    
+    @Test
+    void retentionKeepsTheAnswersFromTheOldestKeptSnapshotOn() throws IOException {
+        // Cuts off after the snapshot at 1200, so it stays and the first segment (records 0 to 1023) goes
+        LocalDateTime cutoff = START.plusMinutes(1250);
+        HistoryLogProperties properties = properties(snapshotDir, SNAPSHOT_INTERVAL);
+        properties.setRetention(Duration.between(cutoff, LocalDateTime.now()));
+        TicketHistoryReplay retained = new TicketHistoryReplay(snapshotLog, properties, mock(TicketRepository.class));
+        retained.open();
+        
+        retained.snapshot();
+        
+        assertThat(snapshotFiles(snapshotDir)).containsExactly(
+                "snapshot-00000000000000001200.bin", "snapshot-00000000000000001500.bin", "snapshot-00000000000000001800.bin");
+        assertThat(snapshotLog.firstPosition()).isEqualTo(1024);
+        List<LocalDateTime> kept = queryTimes().stream().filter(at -> !at.isBefore(START.plusMinutes(1199))).toList();
+        assertThat(retained.getStatusCounts(kept)).isEqualTo(withoutSnapshots.getStatusCounts(kept));
+        for (LocalDateTime at : kept) {
+            for (long ticketId = 1; ticketId <= TICKETS; ticketId++) {
+                assertThat(stateOrNull(retained, ticketId, at)).isEqualTo(stateOrNull(withoutSnapshots, ticketId, at));
+            }
+        }
+        assertThatThrownBy(() -> retained.getStatusCounts(List.of(START.plusMinutes(1000))))
+                .hasMessage("Ticket history that old is no longer kept");
+    }
+    
+    @Test
+    void ticketsFromBeforeTheLogAreSeededFromTheDatabase() throws IOException {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        TicketRepository ticketRepository = mock(TicketRepository.class);
+        when(ticketRepository.streamHistoryStates()).thenReturn(Stream.of(
+                new Object[]{501L, TicketStatus.OPEN, Priority.LOW, null, null, now.minusDays(10), null, null, now.minusDays(10)},
+                new Object[]{502L, TicketStatus.RESOLVED, Priority.HIGH, 300L, 5, now.minusDays(3), now.minusDays(1), null, now.minusDays(1)}));
+        TicketHistoryLog seedLog = openLog(seedDir);
+        TicketHistoryReplay seeded = new TicketHistoryReplay(seedLog, properties(seedDir, SNAPSHOT_INTERVAL), ticketRepository);
+        seeded.open();
+        
+        seeded.seed();
+        TicketEvent closed = TicketEvent.builder()
+                .id(1)
+                .type(TicketEvent.Type.STATUS_CHANGED)
+                .ticketId(501L)
+                .status(TicketStatus.CLOSED)
+                .previousStatus(TicketStatus.OPEN)
+                .priority(Priority.LOW)
+                .occurredAt(now.plusMinutes(1))
+                .build();
+        seedLog.onEvent(closed);
+        
+        assertThat(snapshotFiles(seedDir)).containsExactly("snapshot-00000000000000000000.bin");
+        Map<TicketStatus, Long> counts = seeded.getStatusCounts(List.of(now.plusMinutes(2))).get(0).getByStatus();
+        assertThat(counts).containsEntry(TicketStatus.OPEN, 0L).containsEntry(TicketStatus.RESOLVED, 1L)
+                .containsEntry(TicketStatus.CLOSED, 1L);
+        TicketStateResponse first = seeded.getTicketState(501L, now.plusMinutes(2));
+        assertThat(first.getStatus()).isEqualTo(TicketStatus.CLOSED);
+        assertThat(first.getCreatedAt()).isEqualTo(now.minusDays(10));
+        assertThat(first.getClosedAt()).isEqualTo(now.plusMinutes(1));
+        TicketStateResponse second = seeded.getTicketState(502L, now.plusMinutes(2));
+        assertThat(second.getAssignedToId()).isEqualTo(300L);
+        assertThat(second.getStars()).isEqualTo(5);
+        assertThat(second.getResolvedAt()).isEqualTo(now.minusDays(1));
+        
+        // Seeded once; the snapshot is found again after a restart
+        TicketHistoryReplay restarted = new TicketHistoryReplay(openLog(seedDir), properties(seedDir, SNAPSHOT_INTERVAL), ticketRepository);
+        restarted.open();
+        restarted.seed();
+        verify(ticketRepository, times(1)).streamHistoryStates();
+        assertThat(restarted.getStatusCounts(List.of(now.plusMinutes(2))).get(0).getByStatus()).isEqualTo(counts);
+    }
+    
+    @Test
+    void ticketWithoutRecordedStateFails() {
+        assertThatThrownBy(() -> withSnapshots.getTicketState(1L, START.minusMinutes(1)))
+                .hasMessage("No recorded state for this ticket at that time");
+        assertThatThrownBy(() -> withSnapshots.getTicketState(TICKETS + 1L, START.plusMinutes(EVENTS)))
+                .hasMessage("No recorded state for this ticket at that time");
+    }
+    
+    private void assertSameTicketStates(TicketHistoryReplay actual, TicketHistoryReplay expected) {
+        for (LocalDateTime at : queryTimes()) {
+            for (long ticketId = 1; ticketId <= TICKETS; ticketId++) {
+                assertThat(stateOrNull(actual, ticketId, at))
+                        .as("ticket %d at %s", ticketId, at)
+                        .isEqualTo(stateOrNull(expected, ticketId, at));
+            }
+        }
+    }
+    
+    private void assertSameStatusCounts(TicketHistoryReplay actual, TicketHistoryReplay expected) {
+        List<LocalDateTime> times = queryTimes();
+        assertThat(actual.getStatusCounts(times)).isEqualTo(expected.getStatusCounts(times));
+        // Starting from a later time picks a later snapshot
+        for (LocalDateTime at : times) {
+            List<StatusCountsResponse> counts = actual.getStatusCounts(List.of(at));
+            assertThat(counts).isEqualTo(expected.getStatusCounts(List.of(at)));
+            assertThat(counts.get(0).getByStatus().values().stream().mapToLong(Long::longValue).sum())
+                    .isEqualTo(createdBy(at));
+        }
+    }
+    
+    // Before the first record, on and between records, around every snapshot, and after the last
+    private static List<LocalDateTime> queryTimes() {
+        List<LocalDateTime> times = new ArrayList<>();
+        times.add(START.minusMinutes(1));
+        for (int minute = 0; minute <= EVENTS + 1; minute += 37) {
+            times.add(START.plusMinutes(minute));
+            times.add(START.plusMinutes(minute).plusSeconds(30));
+        }
+        for (int position = SNAPSHOT_INTERVAL; position < EVENTS; position += SNAPSHOT_INTERVAL) {
+            times.add(START.plusMinutes(position - 2));
+            times.add(START.plusMinutes(position - 1));
+            times.add(START.plusMinutes(position));
+        }
+        times.sort(null);
+        return times;
+    }
+    
+    // Tickets are created one per minute from START
+    private static long createdBy(LocalDateTime at) {
+        if (at.isBefore(START)) {
+            return 0;
+        }
+        return Math.min(TICKETS, Duration.between(START, at).toMinutes() + 1);
+    }
+    
+    private static TicketStateResponse stateOrNull(TicketHistoryReplay replay, long ticketId, LocalDateTime at) {
+        try {
+            return replay.getTicketState(ticketId, at);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    // Every ticket is created first, then random changes follow, one record per minute
+    private static List<TicketEvent> history() {
+        Random random = new Random(42);
+        TicketStatus[] status = new TicketStatus[TICKETS + 1];
+        Long[] assignee = new Long[TICKETS + 1];
+        List<TicketEvent> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            long ticketId = i < TICKETS ? i + 1 : random.nextInt(TICKETS) + 1;
+            TicketEvent.Type type = i < TICKETS ? TicketEvent.Type.CREATED : CHANGES[random.nextInt(CHANGES.length)];
+            TicketEvent event = TicketEvent.builder()
+                    .id(i + 1)
+                    .type(type)
+                    .ticketId(ticketId)
+                    .createdById(100L)
+                    .actorId(200L)
+                    .priority(Priority.values()[(int) (ticketId % Priority.values().length)])
+                    .occurredAt(START.plusMinutes(i))
+                    .build();
+            int t = (int) ticketId;
+            switch (type) {
+                case CREATED -> status[t] = TicketStatus.OPEN;
+                case STATUS_CHANGED -> {
+                    event.setPreviousStatus(status[t]);
+                    status[t] = STATUSES[random.nextInt(STATUSES.length)];
+                }
+                case ASSIGNED -> {
+                    event.setPreviousAssigneeId(assignee[t]);
+                    assignee[t] = 300L + random.nextInt(5);
+                }
+                case RATED -> event.setStars(random.nextInt(5) + 1);
+                default -> {
+                }
+            }
+            event.setStatus(status[t]);
+            event.setAssignedToId(assignee[t]);
+            events.add(event);
+        }
+        return events;
+    }
+    
+    private static TicketHistoryLog openLog(Path dir) throws IOException {
+        TicketHistoryLog historyLog = new TicketHistoryLog(properties(dir, Long.MAX_VALUE));
+        historyLog.open();
+        return historyLog;
+    }
+    
+    private static TicketHistoryReplay openReplay(TicketHistoryLog historyLog, Path dir, long snapshotInterval) throws IOException {
+        TicketHistoryReplay replay = new TicketHistoryReplay(historyLog, properties(dir, snapshotInterval), mock(TicketRepository.class));
+        replay.open();
+        return replay;
+    }
+    
+    private static HistoryLogProperties properties(Path dir, long snapshotInterval) {
+        HistoryLogProperties properties = new HistoryLogProperties();
+        properties.setDir(dir.toString());
+        properties.setSnapshotInterval(snapshotInterval);
+        // 1024 records per segment, so replays cross segment files
+        properties.setSegmentSize(DataSize.ofKilobytes(64));
+        return properties;
+    }
+    
+    private static List<String> snapshotFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("snapshot-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
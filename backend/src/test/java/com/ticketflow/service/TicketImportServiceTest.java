@@ -0,0 +1,115 @@
+package com.ticketflow.service;
+
+import com.ticketflow.dto.ImportJobResponse;
+import com.ticketflow.dto.TicketStateResponse;
+import com.ticketflow.model.Role;
+import com.ticketflow.model.Ticket;
+import com.ticketflow.model.TicketStatus;
+import com.ticketflow.model.User;
+import com.ticketflow.repository.TicketRepository;
+import com.ticketflow.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TicketImportServiceTest {
+    
+    @Autowired
+    private TicketImportService ticketImportService;
+    
+    @Autowired
+    private TicketHistoryReplay ticketHistoryReplay;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    // Its startup load splits subjects with a PostgreSQL-only function
+    @MockBean
+    private SubjectTermIndex subjectTermIndex;
+    
+    @Test
+    void importedTicketsGetACreatedRecordInTheHistory() throws Exception {
+        String run = Long.toString(System.nanoTime());
+        User creator = userRepository.save(User.builder()
+                .username("importer" + run)
+                .email("importer" + run + "@example.com")
+                .password("secret")
+                .fullName("Importer")
+                .role(Role.USER)
+                .enabled(true)
+                .build());
+        Map<TicketStatus, Long> countsBefore = statusCountsNow();
+        
+        String ndjson = row(run, 1, "OPEN", creator) + "\n" + row(run, 2, "RESOLVED", creator) + "\n" + row(run, 3, "CLOSED", creator) + "\n";
+        ImportJobResponse job = ticketImportService.startImport(
+                new MockMultipartFile("file", "tickets.ndjson", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8)));
+        job = awaitFinished(job.getJobId());
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getImported()).isEqualTo(3);
+        
+        List<Ticket> imported = ticketRepository.findAll().stream()
+                .filter(ticket -> ticket.getSubject().startsWith("Imported " + run))
+                .toList();
+        assertThat(imported).hasSize(3);
+        for (Ticket ticket : imported) {
+            TicketStateResponse state = awaitState(ticket.getId());
+            assertThat(state.getStatus()).isEqualTo(ticket.getStatus());
+            assertThat(state.getCreatedAt()).isNotNull();
+        }
+        
+        // The status counts now include them
+        Map<TicketStatus, Long> countsAfter = statusCountsNow();
+        assertThat(countsAfter.get(TicketStatus.OPEN)).isEqualTo(countsBefore.get(TicketStatus.OPEN) + 1);
+        assertThat(countsAfter.get(TicketStatus.RESOLVED)).isEqualTo(countsBefore.get(TicketStatus.RESOLVED) + 1);
+        assertThat(countsAfter.get(TicketStatus.CLOSED)).isEqualTo(countsBefore.get(TicketStatus.CLOSED) + 1);
+    }
+    
+    private ImportJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        ImportJobResponse job = ticketImportService.getImportJob(jobId);
+        while (job.getStatus().equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = ticketImportService.getImportJob(jobId);
+        }
+        return job;
+    }
+    
+    // The history log is written by a bus consumer, shortly after the batch commits
+    private TicketStateResponse awaitState(Long ticketId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                return ticketHistoryReplay.getTicketState(ticketId, LocalDateTime.now());
+            } catch (RuntimeException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+    
+    private Map<TicketStatus, Long> statusCountsNow() {
+        return ticketHistoryReplay.getStatusCounts(List.of(LocalDateTime.now())).get(0).getByStatus();
+    }
+    
+    private static String row(String run, int number, String status, User creator) {
+        return "{\"subject\":\"Imported " + run + " #" + number + "\",\"description\":\"Legacy ticket\","
+                + "\"priority\":\"LOW\",\"status\":\"" + status + "\",\"createdBy\":\"" + creator.getUsername() + "\"}";
+    }
+}
@@ -1,13 +1,16 @@
-import api from '@/lib/axios';
+import api, { API_URL } from '@/lib/axios';
 import type { 
   Ticket, 
+  TicketPage,
   TicketRequest, 
   TicketStatus, 
   Priority,
   Comment,
   CommentRequest,
   Rating,
-  RatingRequest
+  RatingRequest,
+  TicketStats,
+  TicketEvent
 } from '@/types';
 
 export const ticketService = {
@@ -31,6 +34,21 @@ export const ticketService = {
     return response.data;
   },
 
+  getMyTicketsPage: async (cursor?: string, size: number = 20): Promise<TicketPage> => {
+    const response = await api.get('/tickets/my-tickets', { params: { cursor, size } });
+    return response.data;
+  },
+
+  getAssignedTicketsPage: async (cursor?: string, size: number = 20): Promise<TicketPage> => {
+    const response = await api.get('/tickets/assigned', { params: { cursor, size } });
+    return response.data;
+  },
+
+  getAllTicketsPage: async (cursor?: string, size: number = 20): Promise<TicketPage> => {
+    const response = await api.get('/tickets/all', { params: { cursor, size } });
+    return response.data;
+  },
+
   getTicketById: async (id: number): Promise<Ticket> => {
     const response = await api.get(`/tickets/${id}`);
     return response.data;
@@ -74,4 +92,84 @@ export const ticketService = {
     const response = await api.get(`/tickets/search?${params.toString()}`);
     return response.data;
   },
+
+  searchTicketsPage: async (
+    keyword?: string,
+    status?: TicketStatus,
+    priority?: Priority,
+    cursor?: string,
+    size: number = 20
+  ): Promise<TicketPage> => {
+    const params = new URLSearchParams();
+    if (keyword) params.append('keyword', keyword);
+    if (status) params.append('status', status);
+    if (priority) params.append('priority', priority);
+    if (cursor) params.append('cursor', cursor);
+    params.append('size', String(size));
+    
+    const response = await api.get(`/tickets/search?${params.toString()}`);
+    return response.data;
+  },
+
+  getStats: async (): Promise<TicketStats> => {
+    const response = await api.get('/stats');
+    return response.data;
+  },
+
+  // Streams changes to visible tickets instead of polling. EventSource cannot send the bearer
+  // token, so the stream is read with fetch; it reconnects with Last-Event-ID until unsubscribed.
+  // onResync is called when events were missed and the shown tickets should be reloaded.
+  subscribeToEvents: (onEvent: (event: TicketEvent) => void, onResync?: () => void): (() => void) => {
+    const controller = new AbortController();
+    let lastEventId: string | undefined;
+    let retryMs = 3000;
+
+    const connect = async () => {
+      while (!controller.signal.aborted) {
+        try {
+          const token = localStorage.getItem('token');
+          const response = await fetch(`${API_URL}/tickets/events`, {
+            headers: {
+              Accept: 'text/event-stream',
+              ...(token ? { Authorization: `Bearer ${token}` } : {}),
+              ...(lastEventId ? { 'Last-Event-ID': lastEventId } : {}),
+            },
+            signal: controller.signal,
+          });
+          if (response.status === 401 || response.status === 403 || !response.body) {
+            return;
+          }
+
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffer = '';
+          for (;;) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += value;
+            let end;
+            while ((end = buffer.indexOf('\n\n')) >= 0) {
+              const block = buffer.slice(0, end);
+              buffer = buffer.slice(end + 2);
+              let name = 'message';
+              let data = '';
+              for (const line of block.split('\n')) {
+                if (line.startsWith('id:')) lastEventId = line.slice(3).trim();
+                else if (line.startsWith('event:')) name = line.slice(6).trim();
+                else if (line.startsWith('data:')) data += line.slice(5);
+                else if (line.startsWith('retry:')) retryMs = Number(line.slice(6)) || retryMs;
+              }
+              if (name === 'resync') onResync?.();
+              else if (data) onEvent(JSON.parse(data));
+            }
+          }
+        } catch {
+          if (controller.signal.aborted) return;
+        }
+        await new Promise((resolve) => setTimeout(resolve, retryMs));
+      }
+    };
+
+    connect();
+    return () => controller.abort();
+  },
 };
@@ -49,6 +49,14 @@ export interface Ticket {
   commentCount: number;
   attachmentCount: number;
   rating?: Rating;
+  searchRank?: number;
+  snippet?: string;
+}
+
+export interface TicketPage {
+  items: Ticket[];
+  next?: string;
+  size: number;
 }
 
 export interface TicketRequest {
@@ -89,3 +97,43 @@ export interface Attachment {
   uploadedBy: User;
   uploadedAt: string;
 }
+
+export interface AgentLoad {
+  agentId: number;
+  username: string;
+  fullName: string;
+  openTickets: number;
+}
+
+export interface TicketStats {
+  totalTickets: number;
+  byStatus: Partial<Record<TicketStatus, number>>;
+  byPriority: Partial<Record<Priority, number>>;
+  openByAgent: AgentLoad[];
+  resolvedTickets: number;
+  meanTimeToResolveHours: number | null;
+  rebuiltAt: string | null;
+}
+
+export type TicketEventType =
+  | 'CREATED'
+  | 'STATUS_CHANGED'
+  | 'ASSIGNED'
+  | 'COMMENT_ADDED'
+  | 'ATTACHMENT_ADDED'
+  | 'RATED';
+
+export interface TicketEvent {
+  id: number;
+  type: TicketEventType;
+  ticketId: number;
+  createdById: number;
+  status: TicketStatus;
+  priority: Priority;
+  assignedToId: number | null;
+  actorId: number | null;
+  previousStatus: TicketStatus | null;
+  previousAssigneeId: number | null;
+  stars: number | null;
+  occurredAt: string;
+}